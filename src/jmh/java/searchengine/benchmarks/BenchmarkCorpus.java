@@ -0,0 +1,49 @@
+package searchengine.benchmarks;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+public final class BenchmarkCorpus {
+    public static final String QUERY = "ремонт телефонов";
+    private static final String PAGE_RESOURCE = "/corpus/page.html";
+    private static final String MAIN_START = "<main";
+    private static final String MAIN_END = "</main>";
+
+    private BenchmarkCorpus() {
+    }
+
+    public static String page(String size) {
+        String page = loadPage();
+        return switch (size) {
+            case "small" -> page;
+            case "medium" -> grow(page, 200 * 1024);
+            case "large" -> grow(page, 10 * 1024 * 1024);
+            default -> throw new IllegalArgumentException("Unknown page size: " + size);
+        };
+    }
+
+    private static String grow(String page, int targetLength) {
+        int mainStart = page.indexOf(MAIN_START);
+        int mainEnd = page.indexOf(MAIN_END) + MAIN_END.length();
+        String main = page.substring(mainStart, mainEnd);
+        StringBuilder builder = new StringBuilder(targetLength + page.length());
+        builder.append(page, 0, mainEnd);
+        while (builder.length() < targetLength) {
+            builder.append(main);
+        }
+        builder.append(page, mainEnd, page.length());
+        return builder.toString();
+    }
+
+    private static String loadPage() {
+        try (InputStream inputStream = BenchmarkCorpus.class.getResourceAsStream(PAGE_RESOURCE)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Corpus page is not found: " + PAGE_RESOURCE);
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
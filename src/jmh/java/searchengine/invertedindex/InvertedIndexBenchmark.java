@@ -0,0 +1,46 @@
+package searchengine.invertedindex;
+import org.openjdk.jmh.annotations.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvertedIndexBenchmark {
+    private static final int SITE_ID = 1;
+    private static final int TOP_COUNT = 20;
+    @Param({"1000", "10000", "100000"})
+    private int candidates;
+    private List<PostingList> postingLists;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        postingLists = new ArrayList<>();
+        postingLists.add(postings(random, candidates, 2));
+        postingLists.add(postings(random, candidates, 3));
+        postingLists.add(postings(random, candidates * 4, 1));
+    }
+
+    @Benchmark
+    public TopPages rankCandidates() {
+        return InvertedIndex.intersect(SITE_ID, postingLists, TOP_COUNT);
+    }
+
+    private PostingList postings(Random random, int size, int maxGap) {
+        int[] pageIds = new int[size];
+        float[] rankScores = new float[size];
+        int pageId = 0;
+        for (int i = 0; i < size; i++) {
+            pageId += 1 + random.nextInt(maxGap);
+            pageIds[i] = pageId;
+            rankScores[i] = 1 + random.nextInt(20);
+        }
+        return new PostingList(PostingList.encode(pageIds, rankScores, size));
+    }
+}
@@ -0,0 +1,34 @@
+package searchengine.lemmafinder;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+import searchengine.benchmarks.BenchmarkCorpus;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LemmaFinderBenchmark {
+    @Param({"small", "medium", "large"})
+    private String pageSize;
+    private String text;
+    private final LemmaFinder lemmaFinder = new LemmaFinder();
+
+    @Setup
+    public void setUp() {
+        text = Jsoup.parse(BenchmarkCorpus.page(pageSize)).text();
+    }
+
+    @Benchmark
+    public HashMap<String, Integer> collectLemmasFromPage() {
+        return lemmaFinder.collectLemmas(text);
+    }
+
+    @Benchmark
+    public HashMap<String, Integer> collectLemmasFromQuery() {
+        return lemmaFinder.collectLemmas(BenchmarkCorpus.QUERY);
+    }
+}
@@ -0,0 +1,39 @@
+package searchengine.services.searchingservice;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+import searchengine.benchmarks.BenchmarkCorpus;
+import searchengine.lemmafinder.LemmaFinder;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnippetGeneratorBenchmark {
+    private static final String SNIPPET =
+            "...Наш сервисный центр занимается ремонтом мобильных телефонов, смартфонов и планшетов уже более десяти лет...";
+    @Param({"small", "medium", "large"})
+    private String pageSize;
+    private String text;
+    private QueryPlan queryPlan;
+    private final SnippetGenerator snippetGenerator = new SnippetGenerator();
+
+    @Setup
+    public void setUp() {
+        text = Jsoup.parse(BenchmarkCorpus.page(pageSize)).text();
+        queryPlan = QueryPlan.compile(BenchmarkCorpus.QUERY,
+                new LemmaFinder().collectLemmas(BenchmarkCorpus.QUERY).keySet());
+    }
+
+    @Benchmark
+    public String generateSnippet() {
+        return snippetGenerator.generateSnippet(text, queryPlan);
+    }
+
+    @Benchmark
+    public String highlightMatches() {
+        return snippetGenerator.highlightMatches(SNIPPET, queryPlan);
+    }
+}
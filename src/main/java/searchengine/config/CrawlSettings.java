@@ -0,0 +1,23 @@
+package searchengine.config;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import searchengine.model.PageContentCodec;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "crawl-settings")
+public class CrawlSettings {
+    private int hostConcurrency = 4;
+    private long hostDelayMs = 150;
+    private int parseThreads = 2;
+    private int lemmatizeThreads = Runtime.getRuntime().availableProcessors();
+    private int persistThreads = 2;
+    private int stageQueueCapacity = 64;
+    private int timeoutMs = 6000;
+    private int maxRetries = 3;
+    private PageContentCodec pageCodec = PageContentCodec.DEFLATE;
+    private boolean recordPositions = true;
+}
@@ -3,9 +3,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import searchengine.dto.indexing.IndexingJobResponse;
 import searchengine.dto.indexing.IndexingResponse;
+import searchengine.dto.indexing.PipelineStatisticsResponse;
+import searchengine.dto.searching.SearchCacheStatistics;
 import searchengine.dto.searching.SearchingResponse;
 import searchengine.dto.statistics.StatisticsResponse;
+import searchengine.services.indexingservice.CrawlMode;
 import searchengine.services.indexingservice.IndexingService;
 import searchengine.services.searchingservice.SearchingService;
 import searchengine.services.statisticsservice.StatisticsService;
@@ -27,8 +31,11 @@ public class ApiController {
     }
 
     @GetMapping("/startIndexing")
-    public ResponseEntity<IndexingResponse> startIndexing() {
-        return ResponseEntity.ok(indexingService.startIndexing());
+    public ResponseEntity<IndexingResponse> startIndexing(
+            @RequestParam(required = false, defaultValue = "false") boolean incremental,
+            @RequestParam(required = false, defaultValue = "false") boolean resume) {
+        CrawlMode crawlMode = resume ? CrawlMode.RESUME : incremental ? CrawlMode.INCREMENTAL : CrawlMode.FULL;
+        return ResponseEntity.ok(indexingService.startIndexing(crawlMode));
     }
 
     @GetMapping("/stopIndexing")
@@ -36,6 +43,17 @@ public class ApiController {
         return ResponseEntity.ok(indexingService.stopIndexing());
     }
 
+    @GetMapping("/indexingProgress")
+    public ResponseEntity<IndexingJobResponse> indexingProgress(@RequestParam(required = false) String jobId) {
+        IndexingJobResponse indexingJobResponse = indexingService.getIndexingProgress(jobId);
+        return indexingJobResponse == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(indexingJobResponse);
+    }
+
+    @GetMapping("/pipelineStatistics")
+    public ResponseEntity<PipelineStatisticsResponse> pipelineStatistics() {
+        return ResponseEntity.ok(indexingService.getPipelineStatistics());
+    }
+
     @PostMapping("/indexPage")
     public ResponseEntity<IndexingResponse> indexPage(@RequestBody String htmlCode) {
         return ResponseEntity.ok(indexingService.indexPage(htmlCode));
@@ -48,4 +66,9 @@ public class ApiController {
                                                     @RequestParam(required = false, defaultValue = "0") int offset) {
         return ResponseEntity.ok(searchingService.search(query, site, limit, offset));
     }
+
+    @GetMapping("/searchCacheStatistics")
+    public ResponseEntity<SearchCacheStatistics> searchCacheStatistics() {
+        return ResponseEntity.ok(searchingService.getCacheStatistics());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package searchengine.dto.indexing;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IndexingJobResponse {
+    private String jobId;
+    private String mode;
+    private String status;
+    private LocalDateTime startTime;
+    private LocalDateTime finishTime;
+    private String error;
+    private List<SiteIndexingProgress> sites;
+}
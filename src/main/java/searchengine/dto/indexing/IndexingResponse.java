@@ -10,4 +10,10 @@ import lombok.Setter;
 public class IndexingResponse {
     private boolean result;
     private String error;
-}
\ No newline at end of file
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String jobId;
+
+    public IndexingResponse(boolean result, String error) {
+        this(result, error, null);
+    }
+}
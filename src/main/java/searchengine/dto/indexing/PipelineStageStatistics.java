@@ -0,0 +1,14 @@
+package searchengine.dto.indexing;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PipelineStageStatistics {
+    private String name;
+    private int parallelism;
+    private int queueDepth;
+    private int queueCapacity;
+    private long completedTasks;
+    private double throughputPerSecond;
+}
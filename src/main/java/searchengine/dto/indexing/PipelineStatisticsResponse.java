@@ -0,0 +1,11 @@
+package searchengine.dto.indexing;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class PipelineStatisticsResponse {
+    private boolean running;
+    private List<PipelineStageStatistics> stages;
+}
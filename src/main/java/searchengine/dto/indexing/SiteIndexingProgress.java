@@ -0,0 +1,20 @@
+package searchengine.dto.indexing;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SiteIndexingProgress {
+    private String name;
+    private String url;
+    private long pagesDiscovered;
+    private long pagesPending;
+    private long pagesFetched;
+    private long pagesFailed;
+    private long pagesIndexed;
+    private long lemmasWritten;
+    private double pagesPerSecond;
+    private Long etaSeconds;
+}
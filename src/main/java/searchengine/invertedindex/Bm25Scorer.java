@@ -0,0 +1,41 @@
+package searchengine.invertedindex;
+import java.util.Map;
+
+public class Bm25Scorer {
+    private final float k1;
+    private final float b;
+    private final int pageCount;
+    private final Map<Integer, Integer> pageLengths;
+    private final float averagePageLength;
+
+    public Bm25Scorer(float k1, float b, Map<Integer, Integer> pageLengths) {
+        this.k1 = k1;
+        this.b = b;
+        this.pageCount = pageLengths.size();
+        this.pageLengths = pageLengths;
+        this.averagePageLength = (float) pageLengths.values().stream()
+                .filter(length -> length > 0)
+                .mapToInt(Integer::intValue)
+                .average()
+                .orElse(1);
+    }
+
+    public void score(int[] pageIds, float[] termFrequencies, int size) {
+        float idf = idf(size);
+        for (int i = 0; i < size; i++) {
+            float termFrequency = termFrequencies[i];
+            Integer pageLength = pageLengths.get(pageIds[i]);
+            float lengthRatio = pageLength == null || pageLength == 0 ? 1 : pageLength / averagePageLength;
+            termFrequencies[i] = idf * termFrequency * (k1 + 1) /
+                    (termFrequency + k1 * (1 - b + b * lengthRatio));
+        }
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    private float idf(int documentFrequency) {
+        return (float) Math.log(1 + (pageCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+}
@@ -0,0 +1,42 @@
+package searchengine.invertedindex;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class InMemorySiteIndex implements SiteIndex {
+    private final Map<String, PostingList> postings;
+    @Getter
+    private final int pageCount;
+
+    @Override
+    public PostingList getPostings(String lemma) {
+        return postings.get(lemma);
+    }
+
+    @Override
+    public StoredPage getPage(int pageId) {
+        return null;
+    }
+
+    Set<String> findLemmas(int pageId) {
+        Set<String> lemmas = new HashSet<>();
+        postings.forEach((lemma, postingList) -> {
+            if (postingList.cursor().advance(pageId) == pageId) {
+                lemmas.add(lemma);
+            }
+        });
+        return lemmas;
+    }
+
+    InMemorySiteIndex withPostings(Set<String> refreshedLemmas, Map<String, PostingList> refreshedPostings,
+                                   int pageCount) {
+        Map<String, PostingList> updatedPostings = new HashMap<>(postings);
+        updatedPostings.keySet().removeAll(refreshedLemmas);
+        updatedPostings.putAll(refreshedPostings);
+        return new InMemorySiteIndex(updatedPostings, pageCount);
+    }
+}
@@ -0,0 +1,374 @@
+package searchengine.invertedindex;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.model.SiteModel;
+import searchengine.repositories.SiteModelRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvertedIndex {
+    private static final String SELECT_POSTINGS_SQL =
+            "SELECT l.lemma, i.page_id, i.rank_score, i.positions FROM indexes i JOIN lemmas l ON l.id = i.lemma_id " +
+                    "WHERE l.site_id = ? ORDER BY l.lemma, i.page_id";
+    private static final String SELECT_LEMMA_POSTINGS_SQL =
+            "SELECT l.lemma, i.page_id, i.rank_score, i.positions FROM indexes i JOIN lemmas l ON l.id = i.lemma_id " +
+                    "WHERE l.site_id = :siteId AND l.lemma IN (:lemmas) ORDER BY l.lemma, i.page_id";
+    private static final String SELECT_PAGE_LEMMAS_SQL =
+            "SELECT l.lemma FROM indexes i JOIN lemmas l ON l.id = i.lemma_id WHERE i.page_id = ?";
+    private static final String SELECT_PAGE_LENGTHS_SQL = "SELECT id, token_count FROM pages WHERE site_id = ?";
+    private static final String SELECT_PAGES_SQL =
+            "SELECT p.id, p.path, t.title, t.text FROM pages p JOIN page_texts t ON t.page_id = p.id " +
+                    "WHERE p.site_id = ? AND p.id > ? ORDER BY p.id LIMIT ?";
+    private static final int SEGMENT_PAGES_CHUNK = 500;
+    private static final int REFRESH_LEMMAS_CHUNK = 500;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final SiteModelRepository siteModelRepository;
+    private final Map<Integer, SiteIndex> siteIndexes = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    @Value("${segment-settings.enabled:false}")
+    private boolean segmentsEnabled;
+    @Value("${segment-settings.directory:segments}")
+    private String segmentsDirectory;
+    @Value("${search-settings.bm25-k1:1.2}")
+    private float bm25K1;
+    @Value("${search-settings.bm25-b:0.75}")
+    private float bm25B;
+    @Value("${search-settings.proximity-weight:0.5}")
+    private float proximityWeight;
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    public void createStreamingJdbcTemplate() {
+        streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        for (SiteModel siteModel : siteModelRepository.findServingSites()) {
+            if (!segmentsEnabled || !openSegment(siteModel)) {
+                rebuildSite(siteModel);
+            }
+        }
+        generation.incrementAndGet();
+    }
+
+    public void rebuildSite(SiteModel siteModel) {
+        long start = System.currentTimeMillis();
+        Bm25Scorer scorer = createScorer(siteModel);
+        PostingsCollector postingsCollector = new PostingsCollector(scorer);
+        streamingJdbcTemplate.query(SELECT_POSTINGS_SQL, postingsCollector, siteModel.getId());
+        Map<String, PostingList> postings = postingsCollector.finish();
+        replaceSiteIndex(siteModel.getId(), new InMemorySiteIndex(postings, scorer.getPageCount()));
+        log.info("Inverted index for site {} has been built: {} lemmas in {} ms",
+                siteModel.getName(), postings.size(), System.currentTimeMillis() - start);
+        if (segmentsEnabled) {
+            writeSegment(siteModel, postings);
+        }
+        generation.incrementAndGet();
+    }
+
+    public void refreshPage(SiteModel siteModel, int pageId) {
+        if (!(siteIndexes.get(siteModel.getId()) instanceof InMemorySiteIndex siteIndex)) {
+            rebuildSite(siteModel);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Set<String> lemmas = siteIndex.findLemmas(pageId);
+        lemmas.addAll(jdbcTemplate.queryForList(SELECT_PAGE_LEMMAS_SQL, String.class, pageId));
+        Bm25Scorer scorer = createScorer(siteModel);
+        PostingsCollector postingsCollector = new PostingsCollector(scorer);
+        List<String> sortedLemmas = lemmas.stream().sorted().toList();
+        for (int i = 0; i < sortedLemmas.size(); i += REFRESH_LEMMAS_CHUNK) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("siteId", siteModel.getId())
+                    .addValue("lemmas", sortedLemmas.subList(i, Math.min(i + REFRESH_LEMMAS_CHUNK, sortedLemmas.size())));
+            namedParameterJdbcTemplate.query(SELECT_LEMMA_POSTINGS_SQL, parameters, postingsCollector);
+        }
+        replaceSiteIndex(siteModel.getId(),
+                siteIndex.withPostings(lemmas, postingsCollector.finish(), scorer.getPageCount()));
+        log.info("Inverted index for site {} has been refreshed for page {}: {} lemmas in {} ms",
+                siteModel.getName(), pageId, lemmas.size(), System.currentTimeMillis() - start);
+        generation.incrementAndGet();
+    }
+
+    public void removeSite(SiteModel siteModel) {
+        replaceSiteIndex(siteModel.getId(), null);
+        if (segmentsEnabled) {
+            deleteSegment(siteModel);
+        }
+        generation.incrementAndGet();
+    }
+
+    public void advanceGeneration() {
+        generation.incrementAndGet();
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public StoredPage getPage(int siteId, int pageId) {
+        SiteIndex siteIndex = retainSiteIndex(siteId);
+        if (siteIndex == null) {
+            return null;
+        }
+        try {
+            return siteIndex.getPage(pageId);
+        } finally {
+            siteIndex.release();
+        }
+    }
+
+    public boolean containsLemma(int siteId, String lemma) {
+        SiteIndex siteIndex = retainSiteIndex(siteId);
+        if (siteIndex == null) {
+            return false;
+        }
+        try {
+            return siteIndex.getPostings(lemma) != null;
+        } finally {
+            siteIndex.release();
+        }
+    }
+
+    public TopPages search(int siteId, Collection<String> lemmas, List<Phrase> phrases, int topCount) {
+        if (lemmas.isEmpty()) {
+            return TopPages.EMPTY;
+        }
+        SiteIndex siteIndex = retainSiteIndex(siteId);
+        if (siteIndex == null) {
+            return TopPages.EMPTY;
+        }
+        try {
+            return search(siteId, siteIndex, lemmas, phrases, topCount);
+        } finally {
+            siteIndex.release();
+        }
+    }
+
+    private TopPages search(int siteId, SiteIndex siteIndex, Collection<String> lemmas, List<Phrase> phrases,
+                            int topCount) {
+        Map<String, PostingList> lemmaPostings = new HashMap<>();
+        for (String lemma : lemmas) {
+            PostingList postingList = siteIndex.getPostings(lemma);
+            if (postingList == null) {
+                return TopPages.EMPTY;
+            }
+            lemmaPostings.put(lemma, postingList);
+        }
+        List<String> sortedLemmas = lemmaPostings.keySet().stream()
+                .sorted(Comparator.comparingInt(lemma -> lemmaPostings.get(lemma).size()))
+                .toList();
+        List<PostingList> postingLists = sortedLemmas.stream().map(lemmaPostings::get).toList();
+        PositionScorer positionScorer = new PositionScorer(sortedLemmas, phrases, proximityWeight);
+        return intersect(siteId, postingLists, positionScorer.isNeeded() ? positionScorer : null, topCount);
+    }
+
+    private Bm25Scorer createScorer(SiteModel siteModel) {
+        Map<Integer, Integer> pageLengths = new HashMap<>();
+        jdbcTemplate.query(SELECT_PAGE_LENGTHS_SQL,
+                rs -> { pageLengths.put(rs.getInt("id"), rs.getInt("token_count")); }, siteModel.getId());
+        return new Bm25Scorer(bm25K1, bm25B, pageLengths);
+    }
+
+    private boolean openSegment(SiteModel siteModel) {
+        Path segmentDirectory = getSegmentDirectory(siteModel);
+        try {
+            SegmentWriter.recover(segmentDirectory);
+            if (!Files.isDirectory(segmentDirectory)) {
+                return false;
+            }
+            replaceSiteIndex(siteModel.getId(), MappedSiteIndex.open(segmentDirectory));
+            log.info("Segment for site {} has been mapped from {}", siteModel.getName(), segmentDirectory);
+            return true;
+        } catch (IOException e) {
+            log.warn("Segment for site {} can't be opened: {}", siteModel.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeSegment(SiteModel siteModel, Map<String, PostingList> postings) {
+        Path segmentDirectory = getSegmentDirectory(siteModel);
+        try {
+            Files.createDirectories(segmentDirectory.getParent());
+            try (SegmentWriter segmentWriter = SegmentWriter.create(segmentDirectory, siteModel.getId())) {
+                segmentWriter.writePostings(postings);
+                int lastPageId = 0;
+                List<StoredPage> pages;
+                do {
+                    pages = jdbcTemplate.query(SELECT_PAGES_SQL, (rs, rowNum) -> new StoredPage(siteModel.getId(),
+                                    rs.getInt("id"), rs.getString("path"), rs.getString("title"), rs.getString("text")),
+                            siteModel.getId(), lastPageId, SEGMENT_PAGES_CHUNK);
+                    for (StoredPage page : pages) {
+                        segmentWriter.addPage(page);
+                        lastPageId = page.pageId();
+                    }
+                } while (pages.size() == SEGMENT_PAGES_CHUNK);
+                segmentWriter.commit();
+            }
+            replaceSiteIndex(siteModel.getId(), MappedSiteIndex.open(segmentDirectory));
+            log.info("Segment for site {} has been written to {}", siteModel.getName(), segmentDirectory);
+        } catch (IOException e) {
+            log.error("Segment for site {} can't be written", siteModel.getName(), e);
+        }
+    }
+
+    private void deleteSegment(SiteModel siteModel) {
+        Path segmentDirectory = getSegmentDirectory(siteModel);
+        try {
+            SegmentWriter.delete(segmentDirectory);
+        } catch (IOException e) {
+            log.warn("Segment {} can't be deleted: {}", segmentDirectory, e.getMessage());
+        }
+    }
+
+    private SiteIndex retainSiteIndex(int siteId) {
+        while (true) {
+            SiteIndex siteIndex = siteIndexes.get(siteId);
+            // a replaced index is already out of the map, so the next lookup finds its successor
+            if (siteIndex == null || siteIndex.retain()) {
+                return siteIndex;
+            }
+        }
+    }
+
+    private void replaceSiteIndex(int siteId, SiteIndex siteIndex) {
+        SiteIndex previous = siteIndex == null ? siteIndexes.remove(siteId) : siteIndexes.put(siteId, siteIndex);
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    private Path getSegmentDirectory(SiteModel siteModel) {
+        return Path.of(segmentsDirectory, "site-" + siteModel.getId());
+    }
+
+    static TopPages intersect(int siteId, List<PostingList> postingLists, int topCount) {
+        return intersect(siteId, postingLists, null, topCount);
+    }
+
+    static TopPages intersect(int siteId, List<PostingList> postingLists, PositionScorer positionScorer,
+                              int topCount) {
+        PostingList.Cursor[] cursors = postingLists.stream()
+                .map(PostingList::cursor)
+                .toArray(PostingList.Cursor[]::new);
+        PriorityQueue<ScoredPage> topPages = new PriorityQueue<>(Math.min(topCount, 1024) + 1,
+                ScoredPage.BY_RELEVANCE.reversed());
+        int count = 0;
+        float maxRelevance = 0;
+        int candidate = cursors[0].next();
+        while (candidate != PostingList.NO_MORE_PAGES) {
+            int nextCandidate = candidate;
+            for (int i = 1; i < cursors.length && nextCandidate == candidate; i++) {
+                nextCandidate = cursors[i].advance(candidate);
+            }
+            if (nextCandidate == candidate) {
+                float relevance = 0;
+                for (PostingList.Cursor cursor : cursors) {
+                    relevance += cursor.rankScore();
+                }
+                int anchorPosition;
+                if (positionScorer == null) {
+                    anchorPosition = cursors[0].firstPosition();
+                } else {
+                    PositionScorer.Match match = positionScorer.match(cursors);
+                    if (match == null) {
+                        candidate = cursors[0].next();
+                        continue;
+                    }
+                    relevance *= match.boost();
+                    anchorPosition = match.anchor();
+                }
+                count++;
+                maxRelevance = Math.max(maxRelevance, relevance);
+                // candidates arrive in ascending page order, so an equal relevance never displaces the heap head
+                if (topPages.size() < topCount) {
+                    topPages.offer(new ScoredPage(siteId, candidate, relevance, anchorPosition));
+                } else if (topCount > 0 && relevance > topPages.peek().relevance()) {
+                    topPages.poll();
+                    topPages.offer(new ScoredPage(siteId, candidate, relevance, anchorPosition));
+                }
+                candidate = cursors[0].next();
+            } else if (nextCandidate == PostingList.NO_MORE_PAGES) {
+                break;
+            } else {
+                candidate = cursors[0].advance(nextCandidate);
+            }
+        }
+        List<ScoredPage> sortedPages = new ArrayList<>(topPages);
+        sortedPages.sort(ScoredPage.BY_RELEVANCE);
+        return new TopPages(sortedPages, count, maxRelevance);
+    }
+
+    @RequiredArgsConstructor
+    private static class PostingsCollector implements RowCallbackHandler {
+        private final Bm25Scorer scorer;
+        private final Map<String, PostingList> postings = new HashMap<>();
+        private String lemma;
+        private int[] pageIds = new int[64];
+        private float[] rankScores = new float[64];
+        private byte[][] positions = new byte[64][];
+        private boolean hasPositions;
+        private int size;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String rowLemma = rs.getString(1);
+            if (!rowLemma.equals(lemma)) {
+                flush();
+                lemma = rowLemma;
+            }
+            int pageId = rs.getInt(2);
+            if (size > 0 && pageIds[size - 1] == pageId) {
+                return;
+            }
+            if (size == pageIds.length) {
+                pageIds = Arrays.copyOf(pageIds, size * 2);
+                rankScores = Arrays.copyOf(rankScores, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            pageIds[size] = pageId;
+            rankScores[size] = rs.getFloat(3);
+            positions[size] = rs.getBytes(4);
+            hasPositions |= positions[size] != null;
+            size++;
+        }
+
+        private Map<String, PostingList> finish() {
+            flush();
+            return postings;
+        }
+
+        private void flush() {
+            if (lemma != null && size > 0) {
+                scorer.score(pageIds, rankScores, size);
+                postings.put(lemma, new PostingList(hasPositions
+                        ? PostingList.encode(pageIds, rankScores, positions, size)
+                        : PostingList.encode(pageIds, rankScores, size)));
+            }
+            Arrays.fill(positions, 0, size, null);
+            hasPositions = false;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package searchengine.invertedindex;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MappedSiteIndex implements SiteIndex {
+    private static final MethodHandle INVOKE_CLEANER = findCleaner();
+    private final MappedByteBuffer dictionary;
+    private final MappedByteBuffer postings;
+    private final MappedByteBuffer pages;
+    private final MappedByteBuffer strings;
+    private final int termCount;
+    private final int termsStart;
+    private final int siteId;
+    private final int pageCount;
+    // the index map holds the first reference, every search holds one more while it reads the buffers
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private MappedSiteIndex(MappedByteBuffer dictionary, MappedByteBuffer postings,
+                            MappedByteBuffer pages, MappedByteBuffer strings) {
+        this.dictionary = dictionary;
+        this.postings = postings;
+        this.pages = pages;
+        this.strings = strings;
+        this.termCount = dictionary.getInt(0);
+        this.termsStart = Integer.BYTES + termCount * SegmentWriter.DICTIONARY_ENTRY_BYTES;
+        this.siteId = pages.getInt(0);
+        this.pageCount = (pages.capacity() - Integer.BYTES) / SegmentWriter.PAGE_ENTRY_BYTES;
+    }
+
+    public static MappedSiteIndex open(Path directory) throws IOException {
+        return new MappedSiteIndex(
+                map(directory.resolve(SegmentWriter.DICTIONARY_FILE)),
+                map(directory.resolve(SegmentWriter.POSTINGS_FILE)),
+                map(directory.resolve(SegmentWriter.PAGES_FILE)),
+                map(directory.resolve(SegmentWriter.STRINGS_FILE)));
+    }
+
+    @Override
+    public boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    @Override
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            unmap(dictionary);
+            unmap(postings);
+            unmap(pages);
+            unmap(strings);
+        }
+    }
+
+    @Override
+    public PostingList getPostings(String lemma) {
+        byte[] term = lemma.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = Integer.BYTES + middle * SegmentWriter.DICTIONARY_ENTRY_BYTES;
+            int comparison = compareTerm(entry, term);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                int postingsOffset = dictionary.getInt(entry + 2 * Integer.BYTES);
+                int postingsLength = dictionary.getInt(entry + 3 * Integer.BYTES);
+                return new PostingList(postings.slice(postingsOffset, postingsLength));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public StoredPage getPage(int pageId) {
+        int low = 0;
+        int high = pageCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = Integer.BYTES + middle * SegmentWriter.PAGE_ENTRY_BYTES;
+            int middlePageId = pages.getInt(entry);
+            if (middlePageId < pageId) {
+                low = middle + 1;
+            } else if (middlePageId > pageId) {
+                high = middle - 1;
+            } else {
+                return new StoredPage(siteId, pageId,
+                        readString(entry + Integer.BYTES),
+                        readString(entry + 3 * Integer.BYTES),
+                        readString(entry + 5 * Integer.BYTES));
+            }
+        }
+        return null;
+    }
+
+    private int compareTerm(int entry, byte[] term) {
+        int termOffset = termsStart + dictionary.getInt(entry);
+        int termLength = dictionary.getInt(entry + Integer.BYTES);
+        int length = Math.min(termLength, term.length);
+        for (int i = 0; i < length; i++) {
+            int comparison = Byte.compareUnsigned(dictionary.get(termOffset + i), term[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(termLength, term.length);
+    }
+
+    private String readString(int reference) {
+        byte[] bytes = new byte[pages.getInt(reference + Integer.BYTES)];
+        strings.get(pages.getInt(reference), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable ignored) {
+            // the mapping is then released when the buffer is garbage collected
+        }
+    }
+
+    private static MethodHandle findCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
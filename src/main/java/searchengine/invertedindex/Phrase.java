@@ -0,0 +1,5 @@
+package searchengine.invertedindex;
+import java.util.List;
+
+public record Phrase(List<String> lemmas, int[] offsets) {
+}
@@ -0,0 +1,70 @@
+package searchengine.invertedindex;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public final class PositionCodec {
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private PositionCodec() {
+    }
+
+    public static byte[] encode(int[] positions) {
+        byte[] bytes = new byte[positions.length * 5];
+        int length = 0;
+        int previous = 0;
+        for (int position : positions) {
+            length = writeVarInt(bytes, length, position - previous);
+            previous = position;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    public static int[] decode(byte[] bytes) {
+        return bytes == null ? NO_POSITIONS : decode(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    static int[] decode(ByteBuffer buffer, int start, int end) {
+        if (start >= end) {
+            return NO_POSITIONS;
+        }
+        int[] positions = new int[end - start];
+        int size = 0;
+        int previous = 0;
+        int index = start;
+        while (index < end) {
+            int delta = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = buffer.get(index++);
+                delta |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            previous += delta;
+            positions[size++] = previous;
+        }
+        return size == positions.length ? positions : Arrays.copyOf(positions, size);
+    }
+
+    static int decodeFirst(ByteBuffer buffer, int start) {
+        int value = 0;
+        int shift = 0;
+        int index = start;
+        byte current;
+        do {
+            current = buffer.get(index++);
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+
+    static int writeVarInt(byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+}
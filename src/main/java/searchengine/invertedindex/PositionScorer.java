@@ -0,0 +1,93 @@
+package searchengine.invertedindex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class PositionScorer {
+    static final Match UNKNOWN = new Match(1, -1);
+    private final List<int[]> phraseCursors = new ArrayList<>();
+    private final List<int[]> phraseOffsets = new ArrayList<>();
+    private final float proximityWeight;
+
+    PositionScorer(List<String> cursorLemmas, List<Phrase> phrases, float proximityWeight) {
+        this.proximityWeight = cursorLemmas.size() > 1 ? proximityWeight : 0;
+        for (Phrase phrase : phrases) {
+            int[] cursors = phrase.lemmas().stream().mapToInt(cursorLemmas::indexOf).toArray();
+            if (Arrays.stream(cursors).allMatch(cursor -> cursor >= 0)) {
+                phraseCursors.add(cursors);
+                phraseOffsets.add(phrase.offsets());
+            }
+        }
+    }
+
+    boolean isNeeded() {
+        return !phraseCursors.isEmpty() || proximityWeight > 0;
+    }
+
+    Match match(PostingList.Cursor[] cursors) {
+        int[][] positions = new int[cursors.length][];
+        for (int i = 0; i < cursors.length; i++) {
+            positions[i] = cursors[i].positions();
+            if (positions[i].length == 0) {
+                return UNKNOWN;
+            }
+        }
+        int anchor = -1;
+        for (int phrase = 0; phrase < phraseCursors.size(); phrase++) {
+            int phraseStart = findPhrase(positions, phraseCursors.get(phrase), phraseOffsets.get(phrase));
+            if (phraseStart < 0) {
+                return null;
+            }
+            anchor = anchor < 0 ? phraseStart : anchor;
+        }
+        if (proximityWeight == 0) {
+            return new Match(1, anchor < 0 ? positions[0][0] : anchor);
+        }
+        int[] window = findMinimumWindow(positions);
+        int minimumSpan = cursors.length - 1;
+        float boost = 1 + proximityWeight * minimumSpan / Math.max(minimumSpan, window[1]);
+        return new Match(boost, anchor < 0 ? window[0] : anchor);
+    }
+
+    static int findPhrase(int[][] positions, int[] cursors, int[] offsets) {
+        for (int start : positions[cursors[0]]) {
+            boolean matched = true;
+            for (int i = 1; i < cursors.length && matched; i++) {
+                matched = Arrays.binarySearch(positions[cursors[i]], start + offsets[i] - offsets[0]) >= 0;
+            }
+            if (matched) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    static int[] findMinimumWindow(int[][] positions) {
+        int[] heads = new int[positions.length];
+        int bestStart = 0;
+        int bestSpan = Integer.MAX_VALUE;
+        while (true) {
+            int minList = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < positions.length; i++) {
+                int position = positions[i][heads[i]];
+                if (position < min) {
+                    min = position;
+                    minList = i;
+                }
+                max = Math.max(max, position);
+            }
+            if (max - min < bestSpan) {
+                bestSpan = max - min;
+                bestStart = min;
+            }
+            if (++heads[minList] == positions[minList].length) {
+                return new int[]{bestStart, bestSpan};
+            }
+        }
+    }
+
+    record Match(float boost, int anchor) {
+    }
+}
@@ -0,0 +1,200 @@
+package searchengine.invertedindex;
+import java.nio.ByteBuffer;
+
+public class PostingList {
+    public static final int NO_MORE_PAGES = Integer.MAX_VALUE;
+    private static final int BLOCK_SIZE = 128;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int blockCount;
+    private final int blockOffsetsStart;
+    private final int scoresStart;
+    private final int pageIdsStart;
+    private final int positionsStart;
+    private final int positionsDataStart;
+
+    public PostingList(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.size = buffer.getInt(0);
+        this.blockCount = buffer.getInt(Integer.BYTES);
+        this.blockOffsetsStart = HEADER_BYTES + blockCount * Integer.BYTES;
+        this.scoresStart = blockOffsetsStart + blockCount * Integer.BYTES;
+        this.pageIdsStart = scoresStart + size * Float.BYTES;
+        this.positionsStart = buffer.getInt(2 * Integer.BYTES);
+        this.positionsDataStart = positionsStart + (size + 1) * Integer.BYTES;
+    }
+
+    public static ByteBuffer encode(int[] pageIds, float[] rankScores, int size) {
+        return encode(pageIds, rankScores, null, size);
+    }
+
+    public static ByteBuffer encode(int[] pageIds, float[] rankScores, byte[][] positions, int size) {
+        int blockCount = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        byte[] deltas = new byte[size * 5];
+        int[] blockOffsets = new int[blockCount];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            if (i % BLOCK_SIZE == 0) {
+                blockOffsets[i / BLOCK_SIZE] = position;
+                continue;
+            }
+            position = PositionCodec.writeVarInt(deltas, position, pageIds[i] - pageIds[i - 1]);
+        }
+        int positionsStart = HEADER_BYTES + 2 * blockCount * Integer.BYTES + size * Float.BYTES + position;
+        int positionsLength = 0;
+        if (positions != null) {
+            positionsLength = (size + 1) * Integer.BYTES;
+            for (int i = 0; i < size; i++) {
+                positionsLength += positions[i] == null ? 0 : positions[i].length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(positionsStart + positionsLength);
+        buffer.putInt(size).putInt(blockCount).putInt(positions == null ? 0 : positionsStart);
+        for (int block = 0; block < blockCount; block++) {
+            buffer.putInt(pageIds[block * BLOCK_SIZE]);
+        }
+        for (int blockOffset : blockOffsets) {
+            buffer.putInt(blockOffset);
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putFloat(rankScores[i]);
+        }
+        buffer.put(deltas, 0, position);
+        if (positions != null) {
+            int positionsOffset = 0;
+            for (int i = 0; i < size; i++) {
+                buffer.putInt(positionsOffset);
+                positionsOffset += positions[i] == null ? 0 : positions[i].length;
+            }
+            buffer.putInt(positionsOffset);
+            for (int i = 0; i < size; i++) {
+                if (positions[i] != null) {
+                    buffer.put(positions[i]);
+                }
+            }
+        }
+        return buffer.flip();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean hasPositions() {
+        return positionsStart != 0;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer.duplicate().clear();
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private int blockFirstPageId(int block) {
+        return buffer.getInt(HEADER_BYTES + block * Integer.BYTES);
+    }
+
+    private int blockOffset(int block) {
+        return buffer.getInt(blockOffsetsStart + block * Integer.BYTES);
+    }
+
+    public class Cursor {
+        private int ordinal = -1;
+        private int pageId = -1;
+        private int bytePosition;
+
+        public int pageId() {
+            return ordinal < size ? pageId : NO_MORE_PAGES;
+        }
+
+        public float rankScore() {
+            return buffer.getFloat(scoresStart + ordinal * Float.BYTES);
+        }
+
+        public int[] positions() {
+            if (positionsStart == 0) {
+                return PositionCodec.decode(null);
+            }
+            int start = buffer.getInt(positionsStart + ordinal * Integer.BYTES);
+            int end = buffer.getInt(positionsStart + (ordinal + 1) * Integer.BYTES);
+            return PositionCodec.decode(buffer, positionsDataStart + start, positionsDataStart + end);
+        }
+
+        public int firstPosition() {
+            if (positionsStart == 0) {
+                return -1;
+            }
+            int start = buffer.getInt(positionsStart + ordinal * Integer.BYTES);
+            int end = buffer.getInt(positionsStart + (ordinal + 1) * Integer.BYTES);
+            return start == end ? -1 : PositionCodec.decodeFirst(buffer, positionsDataStart + start);
+        }
+
+        public int next() {
+            ordinal++;
+            if (ordinal >= size) {
+                return pageId = NO_MORE_PAGES;
+            }
+            if (ordinal % BLOCK_SIZE == 0) {
+                return moveToBlock(ordinal / BLOCK_SIZE);
+            }
+            int delta = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = buffer.get(pageIdsStart + bytePosition++);
+                delta |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return pageId += delta;
+        }
+
+        public int advance(int target) {
+            if (ordinal >= 0 && pageId >= target) {
+                return pageId();
+            }
+            if (size == 0) {
+                ordinal = 0;
+                return pageId = NO_MORE_PAGES;
+            }
+            int currentBlock = Math.max(ordinal, 0) / BLOCK_SIZE;
+            int targetBlock = findBlockContaining(currentBlock, target);
+            if (targetBlock > currentBlock || ordinal < 0) {
+                moveToBlock(targetBlock);
+                ordinal = targetBlock * BLOCK_SIZE;
+            }
+            while (pageId < target) {
+                next();
+            }
+            return pageId;
+        }
+
+        private int moveToBlock(int block) {
+            bytePosition = blockOffset(block);
+            return pageId = blockFirstPageId(block);
+        }
+
+        private int findBlockContaining(int fromBlock, int target) {
+            int step = 1;
+            int low = fromBlock;
+            int high = fromBlock + step;
+            while (high < blockCount && blockFirstPageId(high) <= target) {
+                low = high;
+                step <<= 1;
+                high = low + step;
+            }
+            high = Math.min(high, blockCount - 1);
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (blockFirstPageId(middle) <= target) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+    }
+}
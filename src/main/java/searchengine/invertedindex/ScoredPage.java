@@ -0,0 +1,13 @@
+package searchengine.invertedindex;
+import java.util.Comparator;
+
+public record ScoredPage(int siteId, int pageId, float relevance, int anchorPosition) {
+    public static final Comparator<ScoredPage> BY_RELEVANCE = Comparator
+            .comparingDouble(ScoredPage::relevance).reversed()
+            .thenComparingInt(ScoredPage::siteId)
+            .thenComparingInt(ScoredPage::pageId);
+
+    public ScoredPage(int siteId, int pageId, float relevance) {
+        this(siteId, pageId, relevance, -1);
+    }
+}
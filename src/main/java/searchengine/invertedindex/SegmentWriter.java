@@ -0,0 +1,158 @@
+package searchengine.invertedindex;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+
+public class SegmentWriter implements Closeable {
+    static final String DICTIONARY_FILE = "lemmas.dict";
+    static final String POSTINGS_FILE = "postings-v2.dat";
+    static final String PAGES_FILE = "pages.dat";
+    static final String STRINGS_FILE = "strings.dat";
+    static final int DICTIONARY_ENTRY_BYTES = 4 * Integer.BYTES;
+    static final int PAGE_ENTRY_BYTES = 7 * Integer.BYTES;
+    private final Path directory;
+    private final Path temporaryDirectory;
+    private final DataOutputStream pages;
+    private final DataOutputStream strings;
+    private int stringOffset;
+    private int lastPageId = Integer.MIN_VALUE;
+
+    private SegmentWriter(Path directory, int siteId) throws IOException {
+        this.directory = directory;
+        this.temporaryDirectory = directory.resolveSibling(directory.getFileName() + ".tmp");
+        deleteDirectory(temporaryDirectory);
+        Files.createDirectories(temporaryDirectory);
+        this.pages = openStream(temporaryDirectory.resolve(PAGES_FILE));
+        this.strings = openStream(temporaryDirectory.resolve(STRINGS_FILE));
+        pages.writeInt(siteId);
+    }
+
+    public static SegmentWriter create(Path directory, int siteId) throws IOException {
+        return new SegmentWriter(directory, siteId);
+    }
+
+    public void writePostings(Map<String, PostingList> postings) throws IOException {
+        // lemmas are Cyrillic BMP strings, so their natural order matches UTF-8 byte order
+        List<String> terms = postings.keySet().stream().sorted().toList();
+        try (DataOutputStream dictionary = openStream(temporaryDirectory.resolve(DICTIONARY_FILE));
+             FileChannel postingsChannel = FileChannel.open(temporaryDirectory.resolve(POSTINGS_FILE),
+                     StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            dictionary.writeInt(terms.size());
+            int termOffset = 0;
+            int postingsOffset = 0;
+            for (String term : terms) {
+                ByteBuffer postingsBuffer = postings.get(term).buffer();
+                int postingsLength = postingsBuffer.remaining();
+                int termLength = term.getBytes(StandardCharsets.UTF_8).length;
+                dictionary.writeInt(termOffset);
+                dictionary.writeInt(termLength);
+                dictionary.writeInt(postingsOffset);
+                dictionary.writeInt(postingsLength);
+                while (postingsBuffer.hasRemaining()) {
+                    postingsChannel.write(postingsBuffer);
+                }
+                termOffset = advance(termOffset, termLength, DICTIONARY_FILE);
+                postingsOffset = advance(postingsOffset, postingsLength, POSTINGS_FILE);
+            }
+            for (String term : terms) {
+                dictionary.write(term.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    public void addPage(StoredPage page) throws IOException {
+        if (page.pageId() <= lastPageId) {
+            throw new IllegalArgumentException("Pages must be added in ascending id order");
+        }
+        lastPageId = page.pageId();
+        pages.writeInt(page.pageId());
+        writeString(page.path());
+        writeString(page.title());
+        writeString(page.text());
+    }
+
+    public void commit() throws IOException {
+        close();
+        forceFiles(temporaryDirectory);
+        Path previousDirectory = previousDirectory(directory);
+        deleteDirectory(previousDirectory);
+        if (Files.exists(directory)) {
+            Files.move(directory, previousDirectory, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(temporaryDirectory, directory, StandardCopyOption.ATOMIC_MOVE);
+        deleteDirectory(previousDirectory);
+    }
+
+    public static void recover(Path directory) throws IOException {
+        Path previousDirectory = previousDirectory(directory);
+        if (!Files.exists(directory) && Files.isDirectory(previousDirectory)) {
+            Files.move(previousDirectory, directory, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (strings) {
+            pages.close();
+        }
+    }
+
+    public static void delete(Path directory) throws IOException {
+        deleteDirectory(directory);
+        deleteDirectory(previousDirectory(directory));
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        pages.writeInt(stringOffset);
+        pages.writeInt(bytes.length);
+        strings.write(bytes);
+        stringOffset = advance(stringOffset, bytes.length, STRINGS_FILE);
+    }
+
+    // segment files are mapped as a single buffer and addressed by int offsets, so none may reach 2 GB
+    private static int advance(int offset, int length, String file) throws IOException {
+        if (length > Integer.MAX_VALUE - offset) {
+            throw new IOException("Segment file " + file + " exceeds the 2 GB limit");
+        }
+        return offset + length;
+    }
+
+    private static void forceFiles(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+        }
+    }
+
+    private static Path previousDirectory(Path directory) {
+        return directory.resolveSibling(directory.getFileName() + ".old");
+    }
+
+    private static DataOutputStream openStream(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE_NEW)));
+    }
+}
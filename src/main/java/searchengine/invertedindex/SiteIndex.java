@@ -0,0 +1,14 @@
+package searchengine.invertedindex;
+
+public interface SiteIndex {
+    PostingList getPostings(String lemma);
+    int getPageCount();
+    StoredPage getPage(int pageId);
+
+    default boolean retain() {
+        return true;
+    }
+
+    default void release() {
+    }
+}
@@ -0,0 +1,4 @@
+package searchengine.invertedindex;
+
+public record StoredPage(int siteId, int pageId, String path, String title, String text) {
+}
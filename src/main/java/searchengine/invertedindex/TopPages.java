@@ -0,0 +1,6 @@
+package searchengine.invertedindex;
+import java.util.List;
+
+public record TopPages(List<ScoredPage> pages, int count, float maxRelevance) {
+    public static final TopPages EMPTY = new TopPages(List.of(), 0, 0);
+}
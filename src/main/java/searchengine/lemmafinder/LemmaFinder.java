@@ -4,15 +4,17 @@ import org.apache.lucene.morphology.LuceneMorphology;
 import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
 import java.io.IOException;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class LemmaFinder {
     private static final LuceneMorphology LUCENE_MORPHOLOGY;
-    private static final String WORD_TYPE_REGEX = "\\W\\w&&[^а-яА-Я]";
     private static final Set<String> PARTICLES_NAMES =
             Set.of(" МЕЖД", " ПРЕДЛ", " СОЮЗ", " МС-П", " ЧАСТ", " МС");
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final int LEMMA_CACHE_MAX_SIZE = 100_000;
+    private static final String NOT_A_LEMMA = "";
+    private static final Map<String, String> LEMMA_CACHE = new ConcurrentHashMap<>();
 
     static {
         try {
@@ -24,52 +26,111 @@ public class LemmaFinder {
 
     public HashMap<String, Integer> collectLemmas(String text)  {
         HashMap<String, Integer> lemmas = new HashMap<>();
-        String regex = "[^0-9,;.!'?\"\\s]+";
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(cleanHtmlFromTags(text)
-                .toLowerCase()
-                .replaceAll("([^а-я])", " ")
-                .trim());
-        while (matcher.find()) {
-            String word = matcher.group();
-            if (isCorrectWordForm(word)) {
-                List<String> wordBaseForms = LUCENE_MORPHOLOGY.getMorphInfo(matcher.group());
-                String rightForm = getRightFormOfWord(wordBaseForms, word);
-                if (!hasParticleProperty(rightForm)) {
-                    String lemma = LUCENE_MORPHOLOGY.getNormalForms(matcher.group()).get(0);
-                    lemmas.put(lemma, lemmas.getOrDefault(lemma, 0) + 1);
+        scanLemmas(text, (lemma, position) -> lemmas.merge(lemma, 1, Integer::sum));
+        return lemmas;
+    }
+
+    public HashMap<String, LemmaPositions> collectLemmaPositions(String text) {
+        HashMap<String, LemmaPositions> lemmas = new HashMap<>();
+        scanLemmas(text, (lemma, position) -> lemmas.computeIfAbsent(lemma, key -> new LemmaPositions()).add(position));
+        return lemmas;
+    }
+
+    public static int findTokenOffset(String text, int tokenPosition) {
+        int position = 0;
+        boolean inWord = false;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char symbol = text.charAt(i);
+            if (isWordSymbol(symbol)) {
+                if (!inWord && position == tokenPosition) {
+                    return i;
                 }
+                inWord = true;
+            } else if (inWord) {
+                position++;
+                inWord = false;
             }
         }
-        return lemmas;
+        return -1;
+    }
+
+    private void scanLemmas(String text, LemmaConsumer consumer) {
+        StringBuilder word = new StringBuilder(32);
+        int position = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char symbol = text.charAt(i);
+            if (isWordSymbol(symbol)) {
+                word.append(Character.toLowerCase(symbol));
+            } else {
+                position = addLemma(word, position, consumer);
+            }
+        }
+        addLemma(word, position, consumer);
+    }
+
+    private int addLemma(StringBuilder word, int position, LemmaConsumer consumer) {
+        if (word.isEmpty()) {
+            return position;
+        }
+        if (word.length() >= MIN_WORD_LENGTH) {
+            String lemma = getLemma(word.toString());
+            if (!lemma.isEmpty()) {
+                consumer.accept(lemma, position);
+            }
+        }
+        word.setLength(0);
+        return position + 1;
+    }
+
+    private static boolean isWordSymbol(char symbol) {
+        char lowerSymbol = Character.toLowerCase(symbol);
+        return lowerSymbol >= 'а' && lowerSymbol <= 'я';
     }
 
-    private String cleanHtmlFromTags(String html) {
-        return html.replaceAll("<[^>]*>", "");
+    private String getLemma(String word) {
+        String lemma = LEMMA_CACHE.get(word);
+        if (lemma == null) {
+            lemma = findLemma(word);
+            if (LEMMA_CACHE.size() >= LEMMA_CACHE_MAX_SIZE) {
+                LEMMA_CACHE.clear();
+            }
+            LEMMA_CACHE.put(word, lemma);
+        }
+        return lemma;
     }
 
-    private boolean isCorrectWordForm(String word) {
-        return !word.matches(WORD_TYPE_REGEX) && word.length() > 2;
+    private String findLemma(String word) {
+        List<String> wordBaseForms = LUCENE_MORPHOLOGY.getMorphInfo(word);
+        String rightForm = getRightFormOfWord(wordBaseForms, word);
+        if (rightForm == null || hasParticleProperty(rightForm)) {
+            return NOT_A_LEMMA;
+        }
+        String normalForm = wordBaseForms.get(0);
+        return normalForm.substring(0, normalForm.indexOf('|'));
     }
 
     private String getRightFormOfWord(List<String> wordBaseForms, String word) {
-        HashMap<String, Integer> forms = new HashMap<>();
+        String rightForm = null;
+        int minDistance = Integer.MAX_VALUE;
         for (String wordForm : wordBaseForms) {
-            forms.put(wordForm.substring(0, wordForm.indexOf('|')),
-                    Math.abs(word.length() - wordForm.substring(0, wordForm.indexOf('|')).length()));
+            int distance = Math.abs(word.length() - wordForm.indexOf('|'));
+            if (distance < minDistance) {
+                minDistance = distance;
+                rightForm = wordForm;
+            }
         }
-        String closeForm = forms.entrySet().stream()
-                .min(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
-        return wordBaseForms.stream()
-                .filter(w -> w.substring(0, w.indexOf('|')).equals(closeForm))
-                .findFirst()
-                .orElse(null);
+        return rightForm;
     }
 
     private boolean hasParticleProperty(String rightForm) {
         String upperForm = rightForm.toUpperCase();
         return PARTICLES_NAMES.stream().anyMatch(upperForm::contains);
     }
-}
\ No newline at end of file
+
+    @FunctionalInterface
+    private interface LemmaConsumer {
+        void accept(String lemma, int position);
+    }
+}
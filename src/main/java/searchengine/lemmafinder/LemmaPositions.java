@@ -0,0 +1,22 @@
+package searchengine.lemmafinder;
+import java.util.Arrays;
+
+public class LemmaPositions {
+    private int[] positions = new int[4];
+    private int size;
+
+    public void add(int position) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        positions[size++] = position;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(positions, size);
+    }
+}
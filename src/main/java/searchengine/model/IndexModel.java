@@ -8,18 +8,20 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "indexes")
+@Table(name = "indexes", uniqueConstraints = @UniqueConstraint(columnNames = {"lemma_id", "page_id"}))
 public class IndexModel {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", columnDefinition = "INT")
     private Integer id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "page_id", referencedColumnName = "id", nullable = false, columnDefinition = "INT")
     private PageModel page;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "lemma_id", referencedColumnName = "id" , nullable = false, columnDefinition = "INT")
     private LemmaModel lemma;
     @Column(name = "rank_score", nullable = false, columnDefinition = "FLOAT")
     private Float rankScore;
+    @Column(name = "positions", columnDefinition = "MEDIUMBLOB")
+    private byte[] positions;
 }
\ No newline at end of file
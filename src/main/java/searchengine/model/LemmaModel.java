@@ -9,16 +9,16 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "lemmas")
+@Table(name = "lemmas", uniqueConstraints = @UniqueConstraint(columnNames = {"site_id", "lemma"}))
 public class LemmaModel {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", columnDefinition = "INT")
     private Integer id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "site_id", referencedColumnName = "id", nullable = false, columnDefinition = "INT")
     private SiteModel site;
-    @Column(name = "lemma", nullable = false, columnDefinition = "VARCHAR(255)")
+    @Column(name = "lemma", nullable = false, columnDefinition = "VARCHAR(255) COLLATE utf8mb4_bin")
     private String lemma;
     @Column(name = "frequency", nullable = false, columnDefinition = "INT")
     private Integer frequency;
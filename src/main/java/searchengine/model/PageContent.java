@@ -0,0 +1,73 @@
+package searchengine.model;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public final class PageContent implements Serializable {
+    private static final byte MAGIC = 0;
+    private static final int HEADER_LENGTH = 6;
+    private final byte[] encoded;
+    private transient volatile String html;
+
+    private PageContent(byte[] encoded, String html) {
+        this.encoded = encoded;
+        this.html = html;
+    }
+
+    public static PageContent encode(String html, PageContentCodec codec) {
+        byte[] raw = html.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = codec.compress(raw);
+        byte[] encoded = ByteBuffer.allocate(HEADER_LENGTH + payload.length)
+                .put(MAGIC)
+                .put((byte) codec.getId())
+                .putInt(raw.length)
+                .put(payload)
+                .array();
+        return new PageContent(encoded, html);
+    }
+
+    public static PageContent fromEncoded(byte[] encoded) {
+        return new PageContent(encoded, null);
+    }
+
+    public byte[] getEncoded() {
+        return encoded;
+    }
+
+    public PageContentCodec getCodec() {
+        return isLegacy() ? PageContentCodec.NONE : PageContentCodec.fromId(encoded[1]);
+    }
+
+    public String getHtml() {
+        String decoded = html;
+        if (decoded == null) {
+            decoded = decode();
+            html = decoded;
+        }
+        return decoded;
+    }
+
+    private String decode() {
+        if (isLegacy()) {
+            return new String(encoded, StandardCharsets.UTF_8);
+        }
+        int rawLength = ByteBuffer.wrap(encoded, 2, 4).getInt();
+        byte[] raw = PageContentCodec.fromId(encoded[1]).decompress(encoded, HEADER_LENGTH, rawLength);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private boolean isLegacy() {
+        return encoded.length < HEADER_LENGTH || encoded[0] != MAGIC;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof PageContent pageContent && Arrays.equals(encoded, pageContent.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(encoded);
+    }
+}
@@ -0,0 +1,103 @@
+package searchengine.model;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public enum PageContentCodec {
+    NONE(0) {
+        @Override
+        byte[] compress(byte[] raw) {
+            return raw;
+        }
+
+        @Override
+        byte[] decompress(byte[] encoded, int offset, int rawLength) {
+            byte[] raw = new byte[rawLength];
+            System.arraycopy(encoded, offset, raw, 0, rawLength);
+            return raw;
+        }
+    },
+    DEFLATE(1) {
+        @Override
+        byte[] compress(byte[] raw) {
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length / 4 + 64);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return output.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        byte[] decompress(byte[] encoded, int offset, int rawLength) {
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(encoded, offset, encoded.length - offset);
+                byte[] raw = new byte[rawLength];
+                int length = 0;
+                while (length < rawLength && !inflater.finished()) {
+                    int inflated = inflater.inflate(raw, length, rawLength - length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                if (length != rawLength) {
+                    throw new IllegalStateException("Truncated deflate page content");
+                }
+                return raw;
+            } catch (DataFormatException dataFormatException) {
+                throw new IllegalStateException("Corrupted deflate page content", dataFormatException);
+            } finally {
+                inflater.end();
+            }
+        }
+    },
+    LZ4(2) {
+        @Override
+        byte[] compress(byte[] raw) {
+            return LZ4_COMPRESSOR.compress(raw);
+        }
+
+        @Override
+        byte[] decompress(byte[] encoded, int offset, int rawLength) {
+            return LZ4_DECOMPRESSOR.decompress(encoded, offset, rawLength);
+        }
+    };
+
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4Factory.fastestJavaInstance().fastCompressor();
+    private static final LZ4FastDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestJavaInstance().fastDecompressor();
+    private final int id;
+
+    PageContentCodec(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    abstract byte[] compress(byte[] raw);
+
+    abstract byte[] decompress(byte[] encoded, int offset, int rawLength);
+
+    static PageContentCodec fromId(int id) {
+        for (PageContentCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        throw new IllegalStateException("Unknown page content codec: " + id);
+    }
+}
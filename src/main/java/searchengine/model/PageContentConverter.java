@@ -0,0 +1,16 @@
+package searchengine.model;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class PageContentConverter implements AttributeConverter<PageContent, byte[]> {
+    @Override
+    public byte[] convertToDatabaseColumn(PageContent pageContent) {
+        return pageContent == null ? null : pageContent.getEncoded();
+    }
+
+    @Override
+    public PageContent convertToEntityAttribute(byte[] encoded) {
+        return encoded == null ? null : PageContent.fromEncoded(encoded);
+    }
+}
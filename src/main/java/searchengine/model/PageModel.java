@@ -9,21 +9,30 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "pages")
+@Table(name = "pages", uniqueConstraints = @UniqueConstraint(columnNames = {"site_id", "path"}))
 public class PageModel {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", columnDefinition = "INT")
     private Integer id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "site_id", referencedColumnName = "id", nullable = false, columnDefinition = "INT")
     private SiteModel site;
-    @Column(name = "path", nullable = false, columnDefinition = "TEXT")
+    @Column(name = "path", nullable = false, columnDefinition = "VARCHAR(700) COLLATE utf8mb4_bin")
     private String path;
     @Column(name = "code", nullable = false, columnDefinition = "INT")
     private Integer code;
-    @Column(name = "content", nullable = false, columnDefinition = "MEDIUMTEXT")
-    private String content;
+    @Convert(converter = PageContentConverter.class)
+    @Column(name = "content", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private PageContent content;
+    @Column(name = "etag", columnDefinition = "VARCHAR(255)")
+    private String etag;
+    @Column(name = "last_modified", columnDefinition = "VARCHAR(64)")
+    private String lastModified;
+    @Column(name = "content_hash", columnDefinition = "CHAR(64)")
+    private String contentHash;
+    @Column(name = "token_count", columnDefinition = "INT")
+    private Integer tokenCount;
     @OneToMany(mappedBy = "page", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<IndexModel> indexes;
 }
\ No newline at end of file
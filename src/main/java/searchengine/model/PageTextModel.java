@@ -0,0 +1,27 @@
+package searchengine.model;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "page_texts")
+public class PageTextModel {
+    @Id
+    @Column(name = "page_id", columnDefinition = "INT")
+    private Integer pageId;
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "page_id", referencedColumnName = "id", columnDefinition = "INT")
+    private PageModel page;
+    @Column(name = "title", nullable = false, columnDefinition = "TEXT")
+    private String title;
+    @Column(name = "text", nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String text;
+}
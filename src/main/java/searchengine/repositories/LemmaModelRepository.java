@@ -1,11 +1,13 @@
 package searchengine.repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import searchengine.model.LemmaModel;
-import searchengine.model.SiteModel;
+import searchengine.repositories.projections.SiteCountView;
+import java.util.List;
 
 @Repository
 public interface LemmaModelRepository extends JpaRepository<LemmaModel, Integer> {
-    LemmaModel findBySiteAndLemma(SiteModel siteModel, String lemma);
-    LemmaModel findByLemma(String lemma);
+    @Query("SELECT l.site.id AS siteId, COUNT(l) AS count FROM LemmaModel l GROUP BY l.site.id")
+    List<SiteCountView> countLemmasBySite();
 }
\ No newline at end of file
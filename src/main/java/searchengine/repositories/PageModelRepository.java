@@ -1,13 +1,38 @@
 package searchengine.repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import searchengine.model.PageContent;
 import searchengine.model.PageModel;
 import searchengine.model.SiteModel;
+import searchengine.repositories.projections.PageStateView;
+import searchengine.repositories.projections.SiteCountView;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PageModelRepository extends JpaRepository<PageModel, Integer> {
-    Boolean existsBySiteAndPath(SiteModel siteModel, String path);
+    @Query("SELECT p.id AS id, p.path AS path, p.etag AS etag, p.lastModified AS lastModified, " +
+            "p.contentHash AS contentHash FROM PageModel p WHERE p.site = :site")
+    List<PageStateView> findStatesBySite(@Param("site") SiteModel siteModel);
+    @Query("SELECT p.id AS id, p.path AS path, p.etag AS etag, p.lastModified AS lastModified, " +
+            "p.contentHash AS contentHash FROM PageModel p WHERE p.site = :site AND p.path = :path")
+    Optional<PageStateView> findStateBySiteAndPath(@Param("site") SiteModel siteModel, @Param("path") String path);
+    @Query("SELECT p.site.id AS siteId, COUNT(p) AS count FROM PageModel p GROUP BY p.site.id")
+    List<SiteCountView> countPagesBySite();
+    @Modifying
     @Transactional
-    void deleteBySiteAndPath(SiteModel siteModel, String path);
+    @Query("UPDATE PageModel p SET p.code = :code, p.content = :content, p.etag = :etag, " +
+            "p.lastModified = :lastModified, p.contentHash = :contentHash, p.tokenCount = :tokenCount " +
+            "WHERE p.id = :id")
+    int updateContent(@Param("id") Integer id, @Param("code") Integer code, @Param("content") PageContent content,
+                      @Param("etag") String etag, @Param("lastModified") String lastModified,
+                      @Param("contentHash") String contentHash, @Param("tokenCount") Integer tokenCount);
+    @Modifying
+    @Transactional
+    @Query("UPDATE PageModel p SET p.etag = :etag, p.lastModified = :lastModified WHERE p.id = :id")
+    void updateValidators(@Param("id") Integer id, @Param("etag") String etag, @Param("lastModified") String lastModified);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package searchengine.repositories;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import searchengine.model.PageTextModel;
+import searchengine.repositories.projections.PageTextView;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PageTextModelRepository extends JpaRepository<PageTextModel, Integer> {
+    @Query("SELECT t.pageId AS pageId, p.path AS path, t.title AS title, t.text AS text " +
+            "FROM PageTextModel t JOIN t.page p WHERE t.pageId IN :pageIds")
+    List<PageTextView> findTextsByPageIds(@Param("pageIds") Collection<Integer> pageIds);
+}
@@ -1,12 +1,24 @@
 package searchengine.repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.SiteModel;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SiteModelRepository extends JpaRepository<SiteModel, Integer> {
-    @Transactional
-    void deleteByName(String name);
-    SiteModel findByUrl(String url);
-}
\ No newline at end of file
+    // a site is served by its newest INDEXED generation, or by its newest FAILED one if it has never been indexed
+    String SERVING_SITES_QUERY = "SELECT s FROM SiteModel s " +
+            "WHERE s.siteStatus <> searchengine.model.SiteStatus.INDEXING AND NOT EXISTS (" +
+            "SELECT o.id FROM SiteModel o WHERE o.url = s.url AND (" +
+            "o.siteStatus = searchengine.model.SiteStatus.INDEXED AND s.siteStatus = searchengine.model.SiteStatus.FAILED " +
+            "OR o.siteStatus = s.siteStatus AND o.id > s.id))";
+
+    List<SiteModel> findAllByUrl(String url);
+    @Query(SERVING_SITES_QUERY)
+    List<SiteModel> findServingSites();
+    @Query(SERVING_SITES_QUERY + " AND s.url = :url")
+    Optional<SiteModel> findServingSiteByUrl(@Param("url") String url);
+}
@@ -0,0 +1,9 @@
+package searchengine.repositories.projections;
+
+public interface PageStateView {
+    Integer getId();
+    String getPath();
+    String getEtag();
+    String getLastModified();
+    String getContentHash();
+}
@@ -0,0 +1,8 @@
+package searchengine.repositories.projections;
+
+public interface PageTextView {
+    Integer getPageId();
+    String getPath();
+    String getTitle();
+    String getText();
+}
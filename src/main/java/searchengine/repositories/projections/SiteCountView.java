@@ -0,0 +1,6 @@
+package searchengine.repositories.projections;
+
+public interface SiteCountView {
+    Integer getSiteId();
+    Long getCount();
+}
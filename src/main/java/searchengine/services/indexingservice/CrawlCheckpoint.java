@@ -0,0 +1,128 @@
+package searchengine.services.indexingservice;
+import lombok.extern.slf4j.Slf4j;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+@Slf4j
+public class CrawlCheckpoint implements Closeable {
+    public static final CrawlCheckpoint DISABLED = new CrawlCheckpoint(null, null, 0);
+    private static final char QUEUED = 'Q';
+    private static final char DONE = 'D';
+    private static final char FAILED = 'F';
+    private final Path file;
+    private final BufferedWriter writer;
+    private final long flushIntervalMs;
+    private long lastFlushTime = System.currentTimeMillis();
+    private boolean closed;
+
+    private CrawlCheckpoint(Path file, BufferedWriter writer, long flushIntervalMs) {
+        this.file = file;
+        this.writer = writer;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    static CrawlCheckpoint open(Path file, boolean append, long flushIntervalMs) throws IOException {
+        Files.createDirectories(file.getParent());
+        BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        return new CrawlCheckpoint(file, writer, flushIntervalMs);
+    }
+
+    static State load(Path file, int maxRetries) throws IOException {
+        Set<String> queuedUrls = new LinkedHashSet<>();
+        Set<String> doneUrls = new HashSet<>();
+        Map<String, Integer> failures = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() < 3 || line.charAt(1) != '\t') {
+                    continue;
+                }
+                String url = line.substring(2);
+                switch (line.charAt(0)) {
+                    case QUEUED -> queuedUrls.add(url);
+                    case DONE -> doneUrls.add(url);
+                    case FAILED -> failures.merge(url, 1, Integer::sum);
+                    default -> log.debug("Skipped malformed checkpoint record in {}", file);
+                }
+            }
+        }
+        List<String> pendingUrls = queuedUrls.stream()
+                .filter(url -> !doneUrls.contains(url) && failures.getOrDefault(url, 0) <= maxRetries)
+                .toList();
+        return new State(queuedUrls, pendingUrls);
+    }
+
+    public void queued(String url) {
+        append(QUEUED, url);
+    }
+
+    public void done(String url) {
+        append(DONE, url);
+    }
+
+    public void failed(String url) {
+        append(FAILED, url);
+    }
+
+    public synchronized void delete() {
+        if (writer == null) {
+            return;
+        }
+        closeQuietly();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ioException) {
+            log.warn("Failed to delete crawl checkpoint {}: {}", file, ioException.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            closeQuietly();
+        }
+    }
+
+    private synchronized void append(char type, String url) {
+        if (writer == null || closed) {
+            return;
+        }
+        try {
+            writer.write(type);
+            writer.write('\t');
+            writer.write(url);
+            writer.newLine();
+            long now = System.currentTimeMillis();
+            if (now - lastFlushTime >= flushIntervalMs) {
+                writer.flush();
+                lastFlushTime = now;
+            }
+        } catch (IOException ioException) {
+            log.warn("Failed to write crawl checkpoint {}: {}", file, ioException.getMessage());
+        }
+    }
+
+    private void closeQuietly() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.close();
+        } catch (IOException ioException) {
+            log.warn("Failed to close crawl checkpoint {}: {}", file, ioException.getMessage());
+        }
+    }
+
+    public record State(Set<String> visitedUrls, List<String> pendingUrls) {
+    }
+}
@@ -0,0 +1,61 @@
+package searchengine.services.indexingservice;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import searchengine.model.SiteModel;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class CrawlCheckpointStore {
+    @Value("${checkpoint-settings.enabled:true}")
+    private boolean enabled;
+    @Value("${checkpoint-settings.directory:checkpoints}")
+    private String directory;
+    @Value("${checkpoint-settings.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+    @Value("${crawl-settings.max-retries:3}")
+    private int maxRetries;
+
+    public boolean exists(SiteModel siteModel) {
+        return enabled && Files.exists(getFile(siteModel));
+    }
+
+    public CrawlCheckpoint open(SiteModel siteModel, boolean append) {
+        if (!enabled) {
+            return CrawlCheckpoint.DISABLED;
+        }
+        try {
+            return CrawlCheckpoint.open(getFile(siteModel), append, flushIntervalMs);
+        } catch (IOException ioException) {
+            log.warn("Crawl checkpoint for site {} is disabled: {}", siteModel.getName(), ioException.getMessage());
+            return CrawlCheckpoint.DISABLED;
+        }
+    }
+
+    public CrawlCheckpoint.State load(SiteModel siteModel) throws IOException {
+        return CrawlCheckpoint.load(getFile(siteModel), maxRetries);
+    }
+
+    public void deleteAll() {
+        try {
+            Path checkpointsDirectory = Path.of(directory);
+            if (Files.isDirectory(checkpointsDirectory)) {
+                try (Stream<Path> files = Files.list(checkpointsDirectory)) {
+                    for (Path file : files.toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        } catch (IOException ioException) {
+            log.warn("Failed to delete crawl checkpoints: {}", ioException.getMessage());
+        }
+    }
+
+    private Path getFile(SiteModel siteModel) {
+        return Path.of(directory, "site-" + siteModel.getId() + ".checkpoint");
+    }
+}
@@ -0,0 +1,134 @@
+package searchengine.services.indexingservice;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import searchengine.config.CrawlSettings;
+import searchengine.dto.indexing.PipelineStageStatistics;
+import searchengine.model.PageContentCodec;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+public class CrawlEngine {
+    private final CrawlSettings crawlSettings;
+    private final CrawlMetrics crawlMetrics;
+    private final int fetchThreads;
+    private final ExecutorService fetchExecutor;
+    private final PipelineStage parseStage;
+    private final PipelineStage lemmatizeStage;
+    private final PipelineStage persistStage;
+    private final Map<String, HostThrottle> hostThrottles = new ConcurrentHashMap<>();
+    private final List<Queue<String>> frontiers = new CopyOnWriteArrayList<>();
+    private final LongAdder fetchedPages = new LongAdder();
+    private final long startTime = System.nanoTime();
+
+    public CrawlEngine(CrawlSettings crawlSettings, CrawlMetrics crawlMetrics, int sitesCount) {
+        this.crawlSettings = crawlSettings;
+        this.crawlMetrics = crawlMetrics;
+        this.fetchThreads = Math.max(1, sitesCount) * crawlSettings.getHostConcurrency();
+        this.fetchExecutor = Executors.newFixedThreadPool(fetchThreads);
+        this.parseStage = new PipelineStage("parse",
+                crawlSettings.getParseThreads(), crawlSettings.getStageQueueCapacity(), crawlMetrics);
+        this.lemmatizeStage = new PipelineStage("lemmatize",
+                crawlSettings.getLemmatizeThreads(), crawlSettings.getStageQueueCapacity(), crawlMetrics);
+        this.persistStage = new PipelineStage("persist",
+                crawlSettings.getPersistThreads(), crawlSettings.getStageQueueCapacity(), crawlMetrics);
+    }
+
+    public CrawlMetrics getCrawlMetrics() {
+        return crawlMetrics;
+    }
+
+    public PageContentCodec getPageCodec() {
+        return crawlSettings.getPageCodec();
+    }
+
+    public boolean isRecordPositions() {
+        return crawlSettings.isRecordPositions();
+    }
+
+    public int getMaxRetries() {
+        return crawlSettings.getMaxRetries();
+    }
+
+    public int getFetchWorkersPerSite() {
+        return crawlSettings.getHostConcurrency();
+    }
+
+    public void startFetchWorkers(Queue<String> frontier, Runnable fetchWorker) {
+        frontiers.add(frontier);
+        for (int i = 0; i < getFetchWorkersPerSite(); i++) {
+            fetchExecutor.execute(fetchWorker);
+        }
+    }
+
+    public void parse(Runnable parseTask) {
+        parseStage.submit(parseTask);
+    }
+
+    public void lemmatize(Runnable lemmatizeTask) {
+        lemmatizeStage.submit(lemmatizeTask);
+    }
+
+    public void persist(Runnable persistTask) {
+        persistStage.submit(persistTask);
+    }
+
+    public Connection.Response fetch(String url, String userAgent, String referrer, Map<String, String> headers)
+            throws IOException, InterruptedException {
+        String host = URI.create(url).getHost();
+        HostThrottle hostThrottle = hostThrottles.computeIfAbsent(host,
+                key -> new HostThrottle(crawlSettings.getHostConcurrency(), crawlSettings.getHostDelayMs()));
+        long waitStart = System.nanoTime();
+        hostThrottle.acquire();
+        long fetchStart = System.nanoTime();
+        crawlMetrics.recordHostWait(host, fetchStart - waitStart);
+        int statusCode = -1;
+        try {
+            Connection.Response response = Jsoup.connect(url)
+                    .userAgent(userAgent)
+                    .referrer(referrer)
+                    .headers(headers)
+                    .timeout(crawlSettings.getTimeoutMs())
+                    .execute();
+            statusCode = response.statusCode();
+            return response.bufferUp();
+        } catch (HttpStatusException httpStatusException) {
+            statusCode = httpStatusException.getStatusCode();
+            throw httpStatusException;
+        } finally {
+            hostThrottle.release();
+            fetchedPages.increment();
+            crawlMetrics.recordFetch(host, statusCode, System.nanoTime() - fetchStart);
+        }
+    }
+
+    public List<PipelineStageStatistics> getStatistics() {
+        int frontierDepth = frontiers.stream().mapToInt(Queue::size).sum();
+        return List.of(
+                PipelineStage.getStatistics("fetch", fetchThreads, frontierDepth, -1, fetchedPages.sum(), startTime),
+                parseStage.getStatistics(),
+                lemmatizeStage.getStatistics(),
+                persistStage.getStatistics());
+    }
+
+    public boolean isShutdown() {
+        return fetchExecutor.isShutdown();
+    }
+
+    public void shutdown() {
+        fetchExecutor.shutdown();
+        parseStage.shutdown();
+        lemmatizeStage.shutdown();
+        persistStage.shutdown();
+        log.debug("Crawl pipeline stages have been shut down: {}", getStatistics().stream()
+                .map(stage -> stage.getName() + "=" + stage.getCompletedTasks())
+                .toList());
+    }
+}
@@ -0,0 +1,68 @@
+package searchengine.services.indexingservice;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+public class CrawlMetrics {
+    private static final String UNKNOWN_STATUS = "error";
+    private final MeterRegistry meterRegistry;
+
+    public void recordFetch(String host, int statusCode, long nanos) {
+        Timer.builder("crawl.fetch")
+                .description("Page download latency")
+                .tag("host", host)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("crawl.http.responses",
+                "host", host, "status", statusCode > 0 ? String.valueOf(statusCode) : UNKNOWN_STATUS).increment();
+    }
+
+    public void recordHostWait(String host, long nanos) {
+        Timer.builder("crawl.host.wait")
+                .description("Time spent waiting for a per-host politeness permit")
+                .tag("host", host)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Timer stageTimer(String stage) {
+        return Timer.builder("crawl.stage")
+                .description("Pipeline stage task execution time")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    public Timer stageWaitTimer(String stage) {
+        return Timer.builder("crawl.stage.wait")
+                .description("Time producers are blocked on a full pipeline stage queue")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    public void recordPageLemmas(int lemmasCount) {
+        DistributionSummary.builder("crawl.page.lemmas")
+                .description("Distinct lemmas per indexed page")
+                .register(meterRegistry)
+                .record(lemmasCount);
+    }
+
+    public void recordDbWrite(String operation, long nanos) {
+        Timer.builder("crawl.db.write")
+                .description("Lemma and index batch write latency")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSitePurge(long nanos) {
+        Timer.builder("site.purge")
+                .description("Time to delete all rows of a site generation")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
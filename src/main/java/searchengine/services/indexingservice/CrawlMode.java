@@ -0,0 +1,8 @@
+package searchengine.services.indexingservice;
+
+public enum CrawlMode {
+    FULL,
+    INCREMENTAL,
+    RESUME,
+    SINGLE_PAGE
+}
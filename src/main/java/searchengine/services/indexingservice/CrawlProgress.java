@@ -0,0 +1,54 @@
+package searchengine.services.indexingservice;
+import searchengine.dto.indexing.SiteIndexingProgress;
+import searchengine.model.SiteModel;
+import java.util.concurrent.atomic.LongAdder;
+
+public class CrawlProgress {
+    private final String siteName;
+    private final String siteUrl;
+    private final long startTime = System.nanoTime();
+    private final LongAdder pagesDiscovered = new LongAdder();
+    private final LongAdder pagesPending = new LongAdder();
+    private final LongAdder pagesFetched = new LongAdder();
+    private final LongAdder pagesFailed = new LongAdder();
+    private final LongAdder pagesIndexed = new LongAdder();
+    private final LongAdder lemmasWritten = new LongAdder();
+
+    public CrawlProgress(SiteModel siteModel) {
+        this.siteName = siteModel.getName();
+        this.siteUrl = siteModel.getUrl();
+    }
+
+    public void pageDiscovered() {
+        pagesDiscovered.increment();
+        pagesPending.increment();
+    }
+
+    public void pageFinished() {
+        pagesPending.decrement();
+    }
+
+    public void pageFetched() {
+        pagesFetched.increment();
+    }
+
+    public void pageFailed() {
+        pagesFailed.increment();
+    }
+
+    public void pageIndexed(int lemmas) {
+        pagesIndexed.increment();
+        lemmasWritten.add(lemmas);
+    }
+
+    public SiteIndexingProgress toProgress() {
+        long pending = pagesPending.sum();
+        long fetched = pagesFetched.sum();
+        double elapsedSeconds = Math.max(1e-3, (System.nanoTime() - startTime) / 1e9);
+        double pagesPerSecond = fetched / elapsedSeconds;
+        // a lower bound: pages not discovered yet can't be counted
+        Long etaSeconds = pagesPerSecond > 0 ? Math.round(pending / pagesPerSecond) : null;
+        return new SiteIndexingProgress(siteName, siteUrl, pagesDiscovered.sum(), pending, fetched,
+                pagesFailed.sum(), pagesIndexed.sum(), lemmasWritten.sum(), pagesPerSecond, etaSeconds);
+    }
+}
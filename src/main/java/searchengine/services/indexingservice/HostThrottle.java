@@ -0,0 +1,34 @@
+package searchengine.services.indexingservice;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HostThrottle {
+    private final Semaphore permits;
+    private final long delayNanos;
+    private final AtomicLong nextRequestTime = new AtomicLong(System.nanoTime());
+
+    public HostThrottle(int concurrency, long delayMs) {
+        this.permits = new Semaphore(concurrency, true);
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMs);
+    }
+
+    public void acquire() throws InterruptedException {
+        permits.acquire();
+        long now = System.nanoTime();
+        long requestTime = Math.max(now, nextRequestTime.getAndAccumulate(now,
+                (next, current) -> Math.max(next, current) + delayNanos));
+        if (requestTime > now) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(requestTime - now);
+            } catch (InterruptedException interruptedException) {
+                permits.release();
+                throw interruptedException;
+            }
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
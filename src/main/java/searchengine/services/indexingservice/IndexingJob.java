@@ -0,0 +1,42 @@
+package searchengine.services.indexingservice;
+import lombok.Getter;
+import searchengine.dto.indexing.IndexingJobResponse;
+import searchengine.model.SiteModel;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Getter
+public class IndexingJob {
+    private final String id = UUID.randomUUID().toString();
+    private final CrawlMode crawlMode;
+    private final LocalDateTime startTime = LocalDateTime.now();
+    private final Map<Integer, CrawlProgress> siteProgress = new ConcurrentHashMap<>();
+    private volatile IndexingJobStatus status = IndexingJobStatus.RUNNING;
+    private volatile LocalDateTime finishTime;
+    private volatile String error;
+
+    public IndexingJob(CrawlMode crawlMode) {
+        this.crawlMode = crawlMode;
+    }
+
+    public CrawlProgress trackSite(SiteModel siteModel) {
+        return siteProgress.computeIfAbsent(siteModel.getId(), siteId -> new CrawlProgress(siteModel));
+    }
+
+    public boolean isRunning() {
+        return status == IndexingJobStatus.RUNNING;
+    }
+
+    public void finish(IndexingJobStatus status, String error) {
+        this.finishTime = LocalDateTime.now();
+        this.error = error;
+        this.status = status;
+    }
+
+    public IndexingJobResponse toResponse() {
+        return new IndexingJobResponse(id, crawlMode.name(), status.name(), startTime, finishTime, error,
+                siteProgress.values().stream().map(CrawlProgress::toProgress).toList());
+    }
+}
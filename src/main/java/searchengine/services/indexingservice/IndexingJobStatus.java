@@ -0,0 +1,8 @@
+package searchengine.services.indexingservice;
+
+public enum IndexingJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
@@ -1,8 +1,12 @@
 package searchengine.services.indexingservice;
+import searchengine.dto.indexing.IndexingJobResponse;
 import searchengine.dto.indexing.IndexingResponse;
+import searchengine.dto.indexing.PipelineStatisticsResponse;
 
 public interface IndexingService {
-    IndexingResponse startIndexing();
+    IndexingResponse startIndexing(CrawlMode crawlMode);
     IndexingResponse stopIndexing();
     IndexingResponse indexPage(String htmlCode);
+    IndexingJobResponse getIndexingProgress(String jobId);
+    PipelineStatisticsResponse getPipelineStatistics();
 }
\ No newline at end of file
@@ -1,124 +1,257 @@
 package searchengine.services.indexingservice;
 
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import searchengine.config.CrawlSettings;
 import searchengine.config.Site;
 import searchengine.config.SitesList;
+import searchengine.dto.indexing.IndexingJobResponse;
 import searchengine.dto.indexing.IndexingResponse;
+import searchengine.dto.indexing.PipelineStatisticsResponse;
+import searchengine.invertedindex.InvertedIndex;
 import searchengine.model.*;
-import searchengine.repositories.IndexModelRepository;
-import searchengine.repositories.LemmaModelRepository;
 import searchengine.repositories.PageModelRepository;
+import searchengine.repositories.PageTextModelRepository;
 import searchengine.repositories.SiteModelRepository;
+import searchengine.repositories.projections.PageStateView;
+import searchengine.services.statisticsservice.SiteStatisticsCounters;
 
+import java.io.IOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class IndexingServiceImpl implements IndexingService, InterruptionChecker {
+    private static final int MAX_TRACKED_JOBS = 20;
     private final SitesList sites;
     private final PageModelRepository pageModelRepository;
+    private final PageTextModelRepository pageTextModelRepository;
     private final SiteModelRepository siteModelRepository;
-    private final LemmaModelRepository lemmaModelRepository;
-    private final IndexModelRepository indexModelRepository;
+    private final LemmaIndexBatchWriter lemmaIndexBatchWriter;
+    private final InvertedIndex invertedIndex;
+    private final CrawlSettings crawlSettings;
+    private final CrawlMetrics crawlMetrics;
+    private final SiteStatisticsCounters siteStatisticsCounters;
+    private final CrawlCheckpointStore crawlCheckpointStore;
+    private final SiteGenerations siteGenerations;
     @Value("${visit-settings.userAgent}")
     private String userAgent;
     @Value("${visit-settings.referrer}")
     private String referrer;
+    private final ExecutorService indexingJobExecutor = Executors.newSingleThreadExecutor();
+    private final Map<String, IndexingJob> indexingJobs = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IndexingJob> eldest) {
+                    return size() > MAX_TRACKED_JOBS;
+                }
+            });
     private volatile boolean isInterrupted;
+    private volatile CrawlEngine currentCrawlEngine;
+    private volatile IndexingJob currentJob;
 
     @Override
-    public IndexingResponse startIndexing() {
-
-        isInterrupted = false;
-        if (siteModelRepository.findAll().stream()
-                .allMatch(siteModel -> siteModel.getSiteStatus() == SiteStatus.INDEXING) &&
-                !siteModelRepository.findAll().stream()
-                        .toList()
-                        .isEmpty()) {
+    public synchronized IndexingResponse startIndexing(CrawlMode crawlMode) {
+        if (isJobRunning()) {
             log.info("Sites are already indexing right now");
             return new IndexingResponse(false, "Indexing has already started");
         }
+        IndexingJob indexingJob = new IndexingJob(crawlMode);
+        submitJob(indexingJob, switch (crawlMode) {
+            case INCREMENTAL -> () -> refreshSites(indexingJob);
+            case RESUME -> () -> resumeSites(indexingJob);
+            default -> () -> indexSites(indexingJob);
+        });
+        return new IndexingResponse(true, "", indexingJob.getId());
+    }
 
-        deleteSites(siteModelRepository);
-        initSites(sites);
-        ForkJoinPool pool = new ForkJoinPool();
-        List<ForkJoinTask<Void>> tasks = new ArrayList<>();
-
-        siteModelRepository.findAll().forEach(siteModel -> {
-            if (isInterrupted) return;
-            ForkJoinTask<Void> task = pool.submit(() ->
-                    new SaverPagesPool(
-                            siteModel,
-                            siteModel.getUrl(),
-                            siteModelRepository,
-                            pageModelRepository,
-                            userAgent,
-                            referrer,
-                            this::isInterrupted,
-                            lemmaModelRepository,
-                            indexModelRepository).invoke());
-            tasks.add(task);
+    @Override
+    public IndexingJobResponse getIndexingProgress(String jobId) {
+        IndexingJob indexingJob = jobId == null ? currentJob : indexingJobs.get(jobId);
+        return indexingJob == null ? null : indexingJob.toResponse();
+    }
+
+    @PreDestroy
+    public void stopIndexingJobExecutor() {
+        isInterrupted = true;
+        indexingJobExecutor.shutdown();
+    }
+
+    private boolean isJobRunning() {
+        IndexingJob indexingJob = currentJob;
+        return indexingJob != null && indexingJob.isRunning();
+    }
+
+    private void submitJob(IndexingJob indexingJob, Supplier<IndexingResponse> jobBody) {
+        isInterrupted = false;
+        currentJob = indexingJob;
+        indexingJobs.put(indexingJob.getId(), indexingJob);
+        indexingJobExecutor.execute(() -> {
+            try {
+                IndexingResponse response = jobBody.get();
+                IndexingJobStatus status = isInterrupted ? IndexingJobStatus.CANCELLED
+                        : response.isResult() ? IndexingJobStatus.COMPLETED : IndexingJobStatus.FAILED;
+                indexingJob.finish(status, response.getError());
+            } catch (Exception exception) {
+                log.error("Indexing job {} failed", indexingJob.getId(), exception);
+                indexingJob.finish(IndexingJobStatus.FAILED, exception.getMessage());
+            }
+            log.info("Indexing job {} finished with status {}", indexingJob.getId(), indexingJob.getStatus());
         });
-        tasks.forEach(ForkJoinTask::join);
-        pool.shutdown();
+    }
 
-        if (siteModelRepository.findAll().stream()
+    private IndexingResponse indexSites(IndexingJob indexingJob) {
+        crawlCheckpointStore.deleteAll();
+        List<SiteModel> siteModels = initSites(sites);
+        crawlSites(siteModels, indexingJob, Map.of());
+
+        if (siteModels.stream()
                 .allMatch(siteModel -> siteModel.getSiteStatus() == SiteStatus.FAILED)) {
             log.info("Sites haven't been indexed");
             return new IndexingResponse(false, "Something went wrong");
         }
 
-        changeSitesStatusToIndexed(siteModelRepository);
+        siteStatisticsCounters.synchronize();
         log.info("Sites have been indexed");
         return new IndexingResponse(true, "");
     }
 
-    private void deleteSites(SiteModelRepository siteModelRepository) {
-        for (Site site : sites.getSites()) {
-            siteModelRepository.deleteByName(site.getName());
+    private IndexingResponse refreshSites(IndexingJob indexingJob) {
+        List<SiteModel> siteModels = sites.getSites().stream()
+                .map(this::findOrInitSite)
+                .toList();
+        siteModels.forEach(lemmaIndexBatchWriter::preloadDictionary);
+        crawlSites(siteModels, indexingJob, Map.of());
+        siteStatisticsCounters.synchronize();
+        log.info("Sites have been refreshed");
+        return new IndexingResponse(true, "");
+    }
+
+    private IndexingResponse resumeSites(IndexingJob indexingJob) {
+        Map<Integer, CrawlCheckpoint.State> resumeStates = new HashMap<>();
+        List<SiteModel> siteModels = new ArrayList<>();
+        for (SiteModel siteModel : siteModelRepository.findAll()) {
+            if (!crawlCheckpointStore.exists(siteModel)) {
+                continue;
+            }
+            try {
+                resumeStates.put(siteModel.getId(), crawlCheckpointStore.load(siteModel));
+            } catch (IOException ioException) {
+                log.warn("Crawl checkpoint for site {} is unreadable: {}", siteModel.getName(), ioException.getMessage());
+                continue;
+            }
+            if (siteModel.getSiteStatus() != SiteStatus.INDEXED) {
+                siteModel.setSiteStatus(SiteStatus.INDEXING);
+                siteModel.setStatusTime(LocalDateTime.now());
+                siteModelRepository.saveAndFlush(siteModel);
+            }
+            siteModels.add(siteModel);
+        }
+        if (siteModels.isEmpty()) {
+            log.info("There are no crawl checkpoints to resume");
+            return new IndexingResponse(false, "There is no interrupted indexing to resume");
         }
-        log.info("DB is cleaned successfully");
+        siteModels.forEach(lemmaIndexBatchWriter::preloadDictionary);
+        crawlSites(siteModels, indexingJob, resumeStates);
+        siteStatisticsCounters.synchronize();
+        log.info("Sites indexing has been resumed and finished");
+        return new IndexingResponse(true, "");
     }
 
-    private void initSites(SitesList sites) {
-        for (Site site : sites.getSites()) {
-            SiteModel siteModel = SiteModel.builder()
-                    .siteStatus(SiteStatus.INDEXING)
-                    .statusTime(LocalDateTime.now())
-                    .url(site.getUrl() + "/")
-                    .name(site.getName()).build();
-            siteModelRepository.saveAndFlush(siteModel);
+    private void crawlSites(List<SiteModel> siteModels, IndexingJob indexingJob,
+                            Map<Integer, CrawlCheckpoint.State> resumeStates) {
+        CrawlEngine crawlEngine = startCrawlEngine(siteModels.size());
+        List<CrawlCheckpoint> crawlCheckpoints = new ArrayList<>();
+        try {
+            CompletableFuture.allOf(siteModels.stream()
+                    .map(siteModel -> {
+                        CrawlMode crawlMode = getCrawlMode(siteModel, indexingJob);
+                        CrawlCheckpoint crawlCheckpoint = crawlCheckpointStore.open(siteModel,
+                                resumeStates.containsKey(siteModel.getId()));
+                        crawlCheckpoints.add(crawlCheckpoint);
+                        return startCrawl(siteModel, crawlEngine, indexingJob, crawlMode, crawlCheckpoint,
+                                resumeStates.get(siteModel.getId()))
+                                .thenRun(() -> {
+                                    lemmaIndexBatchWriter.flushFrequencies(siteModel);
+                                    if (!isInterrupted) {
+                                        crawlCheckpoint.delete();
+                                    }
+                                    if (!isInterrupted || crawlMode == CrawlMode.INCREMENTAL) {
+                                        siteGenerations.activate(siteModel);
+                                    } else {
+                                        siteGenerations.keepForResume(siteModel);
+                                    }
+                                });
+                    })
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            crawlEngine.shutdown();
+            crawlCheckpoints.forEach(CrawlCheckpoint::close);
+        }
+    }
+
+    private CompletableFuture<Void> startCrawl(SiteModel siteModel, CrawlEngine crawlEngine, IndexingJob indexingJob,
+                                               CrawlMode crawlMode, CrawlCheckpoint crawlCheckpoint,
+                                               CrawlCheckpoint.State resumeState) {
+        Map<String, PageStateView> knownPages = crawlMode == CrawlMode.FULL
+                ? Map.of()
+                : getKnownPages(siteModel);
+        SaverPagesPool saverPagesPool = createSaverPagesPool(siteModel, siteModel.getUrl(), crawlEngine,
+                indexingJob, crawlMode, knownPages, crawlCheckpoint);
+        return resumeState == null ? saverPagesPool.crawl() : saverPagesPool.resume(resumeState);
+    }
+
+    private CrawlMode getCrawlMode(SiteModel siteModel, IndexingJob indexingJob) {
+        // an interrupted incremental run is resumed in place and must keep the serving generation searchable
+        if (indexingJob.getCrawlMode() == CrawlMode.RESUME && siteModel.getSiteStatus() == SiteStatus.INDEXED) {
+            return CrawlMode.INCREMENTAL;
+        }
+        return indexingJob.getCrawlMode();
+    }
+
+    private SiteModel findOrInitSite(Site site) {
+        String siteUrl = UrlNormalizer.normalizeSiteUrl(site.getUrl());
+        SiteModel siteModel = siteModelRepository.findServingSiteByUrl(siteUrl).orElse(null);
+        if (siteModel == null) {
             log.info("Site {} has been initialized successfully", site.getName());
+            return siteGenerations.createShadow(siteUrl, site.getName());
+        } else if (siteModel.getSiteStatus() == SiteStatus.FAILED) {
+            siteModel.setSiteStatus(SiteStatus.INDEXING);
+            siteModel.setStatusTime(LocalDateTime.now());
         }
+        return siteModelRepository.saveAndFlush(siteModel);
     }
 
-    private void changeSitesStatusToIndexed(SiteModelRepository siteModelRepository) {
-        siteModelRepository.findAll().stream()
-                .filter(siteModel -> siteModel.getSiteStatus() == SiteStatus.INDEXING)
-                .forEach(siteModel -> {
-                    siteModel.setSiteStatus(SiteStatus.INDEXED);
-                    siteModelRepository.saveAndFlush(siteModel);
-                    log.debug("Site {} has changed status to indexed", siteModel.getName());
-                });
+    private Map<String, PageStateView> getKnownPages(SiteModel siteModel) {
+        return pageModelRepository.findStatesBySite(siteModel).stream()
+                .collect(Collectors.toMap(PageStateView::getPath, Function.identity(), (first, second) -> first));
+    }
+
+    private List<SiteModel> initSites(SitesList sites) {
+        List<SiteModel> siteModels = new ArrayList<>();
+        for (Site site : sites.getSites()) {
+            siteModels.add(siteGenerations.createShadow(UrlNormalizer.normalizeSiteUrl(site.getUrl()), site.getName()));
+            log.info("Site {} shadow generation has been initialized successfully", site.getName());
+        }
+        return siteModels;
     }
 
     @Override
     public IndexingResponse stopIndexing() {
-        if (siteModelRepository.findAll().stream()
-                .allMatch(siteModel -> siteModel.getSiteStatus() != SiteStatus.INDEXING)
-                || siteModelRepository.findAll().stream()
-                .toList()
-                .isEmpty()) {
+        if (!isJobRunning()) {
             log.info("Sites are not indexing right now");
             return new IndexingResponse(false, "Indexing not started");
         }
@@ -133,32 +266,24 @@ public class IndexingServiceImpl implements IndexingService, InterruptionChecker
     }
 
     @Override
-    public IndexingResponse indexPage(String htmlCode) {
+    public synchronized IndexingResponse indexPage(String htmlCode) {
         String decodedHtmlCode = urlDecoding(htmlCode);
         log.info("Indexing page: {}", decodedHtmlCode);
-        isInterrupted = false;
+        if (isJobRunning()) {
+            log.info("Sites are already indexing right now");
+            return new IndexingResponse(false, "Indexing has already started");
+        }
 
-        for (SiteModel siteModel : siteModelRepository.findAll()) {
+        String pageUrl = Objects.requireNonNullElse(UrlNormalizer.normalize(decodedHtmlCode), decodedHtmlCode);
+        for (SiteModel siteModel : siteModelRepository.findServingSites()) {
             String url = siteModel.getUrl();
-            if (decodedHtmlCode.startsWith(url)) {
+            if (pageUrl.startsWith(url)) {
                 log.debug("Found site: {}", siteModel.getName());
-                String childUrl = decodedHtmlCode.substring(url.length() - 1);
+                String childUrl = pageUrl.substring(url.length() - 1);
                 log.debug("Target url: {}", childUrl);
-                deletePageIfExisted(siteModel, childUrl);
-                SaverPagesPool task = new SaverPagesPool(
-                        siteModel,
-                        decodedHtmlCode,
-                        siteModelRepository,
-                        pageModelRepository,
-                        userAgent,
-                        referrer,
-                        this::isInterrupted,
-                        lemmaModelRepository,
-                        indexModelRepository);
-                ForkJoinPool pool = new ForkJoinPool();
-                pool.invoke(task);
-                log.info("Page has been indexed successfully {}", decodedHtmlCode);
-                return new IndexingResponse(true, "");
+                IndexingJob indexingJob = new IndexingJob(CrawlMode.SINGLE_PAGE);
+                submitJob(indexingJob, () -> indexSinglePage(indexingJob, siteModel, pageUrl, childUrl));
+                return new IndexingResponse(true, "", indexingJob.getId());
             }
         }
         log.info("Site {} is not found", decodedHtmlCode);
@@ -166,12 +291,68 @@ public class IndexingServiceImpl implements IndexingService, InterruptionChecker
                 "This page is outside the sites specified in the configuration file");
     }
 
-    private String urlDecoding(String htmlCode) {
-        return URLDecoder.decode(htmlCode, StandardCharsets.UTF_8).replaceAll("url=", "");
+    private IndexingResponse indexSinglePage(IndexingJob indexingJob, SiteModel siteModel,
+                                             String pageUrl, String childUrl) {
+        Map<String, PageStateView> knownPages = pageModelRepository.findStateBySiteAndPath(siteModel, childUrl)
+                .map(pageState -> Map.of(childUrl, pageState))
+                .orElse(Map.of());
+        lemmaIndexBatchWriter.preloadDictionary(siteModel);
+        CrawlEngine crawlEngine = startCrawlEngine(1);
+        try {
+            createSaverPagesPool(siteModel, pageUrl, crawlEngine, indexingJob, CrawlMode.SINGLE_PAGE, knownPages,
+                    CrawlCheckpoint.DISABLED)
+                    .crawl().join();
+        } finally {
+            crawlEngine.shutdown();
+        }
+        lemmaIndexBatchWriter.flushFrequencies(siteModel);
+        Optional<Integer> pageId = pageModelRepository.findStateBySiteAndPath(siteModel, childUrl)
+                .or(() -> Optional.ofNullable(knownPages.get(childUrl)))
+                .map(PageStateView::getId);
+        if (pageId.isPresent()) {
+            invertedIndex.refreshPage(siteModel, pageId.get());
+        }
+        log.info("Page has been indexed successfully {}", pageUrl);
+        return new IndexingResponse(true, "");
+    }
+
+    @Override
+    public PipelineStatisticsResponse getPipelineStatistics() {
+        CrawlEngine crawlEngine = currentCrawlEngine;
+        if (crawlEngine == null) {
+            return new PipelineStatisticsResponse(false, List.of());
+        }
+        return new PipelineStatisticsResponse(!crawlEngine.isShutdown(), crawlEngine.getStatistics());
+    }
+
+    private CrawlEngine startCrawlEngine(int sitesCount) {
+        CrawlEngine crawlEngine = new CrawlEngine(crawlSettings, crawlMetrics, sitesCount);
+        currentCrawlEngine = crawlEngine;
+        return crawlEngine;
     }
 
-    private void deletePageIfExisted(SiteModel siteModel, String childUrl) {
-        if (pageModelRepository.existsBySiteAndPath(siteModel, childUrl))
-            pageModelRepository.deleteBySiteAndPath(siteModel, childUrl);
+    private SaverPagesPool createSaverPagesPool(SiteModel siteModel, String url, CrawlEngine crawlEngine,
+                                                IndexingJob indexingJob, CrawlMode crawlMode,
+                                                Map<String, PageStateView> knownPages,
+                                                CrawlCheckpoint crawlCheckpoint) {
+        return new SaverPagesPool(
+                siteModel,
+                url,
+                siteModelRepository,
+                pageModelRepository,
+                pageTextModelRepository,
+                userAgent,
+                referrer,
+                this::isInterrupted,
+                lemmaIndexBatchWriter,
+                crawlEngine,
+                crawlMode,
+                knownPages,
+                indexingJob.trackSite(siteModel),
+                crawlCheckpoint);
+    }
+
+    private String urlDecoding(String htmlCode) {
+        return URLDecoder.decode(htmlCode, StandardCharsets.UTF_8).replaceAll("url=", "");
     }
 }
\ No newline at end of file
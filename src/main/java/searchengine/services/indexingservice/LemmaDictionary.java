@@ -0,0 +1,64 @@
+package searchengine.services.indexingservice;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LemmaDictionary {
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger pagesSinceFlush = new AtomicInteger();
+
+    public Integer getId(String lemma) {
+        Entry entry = entries.get(lemma);
+        return entry == null ? null : entry.id.get();
+    }
+
+    public boolean putId(String lemma, int id) {
+        Entry entry = entries.computeIfAbsent(lemma, key -> new Entry());
+        return entry.id.compareAndSet(null, id);
+    }
+
+    public void incrementFrequency(String lemma) {
+        entries.computeIfAbsent(lemma, key -> new Entry()).pendingFrequency.increment();
+    }
+
+    public void decrementFrequency(String lemma) {
+        entries.computeIfAbsent(lemma, key -> new Entry()).pendingFrequency.decrement();
+    }
+
+    public boolean pageIndexed(int flushInterval) {
+        return pagesSinceFlush.incrementAndGet() >= flushInterval;
+    }
+
+    public List<FrequencyDelta> drainFrequencyDeltas() {
+        pagesSinceFlush.set(0);
+        List<FrequencyDelta> deltas = new ArrayList<>();
+        entries.values().forEach(entry -> {
+            Integer id = entry.id.get();
+            if (id == null) {
+                return;
+            }
+            long delta = entry.pendingFrequency.sumThenReset();
+            if (delta != 0) {
+                deltas.add(new FrequencyDelta(id, delta));
+            }
+        });
+        deltas.sort(Comparator.comparingInt(FrequencyDelta::lemmaId));
+        return deltas;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public record FrequencyDelta(int lemmaId, long delta) {
+    }
+
+    private static class Entry {
+        private final AtomicReference<Integer> id = new AtomicReference<>();
+        private final LongAdder pendingFrequency = new LongAdder();
+    }
+}
@@ -0,0 +1,18 @@
+package searchengine.services.indexingservice;
+import org.springframework.stereotype.Component;
+import searchengine.model.SiteModel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class LemmaDictionaryCache {
+    private final Map<Integer, LemmaDictionary> dictionaries = new ConcurrentHashMap<>();
+
+    public LemmaDictionary forSite(SiteModel siteModel) {
+        return dictionaries.computeIfAbsent(siteModel.getId(), siteId -> new LemmaDictionary());
+    }
+
+    public void remove(int siteId) {
+        dictionaries.remove(siteId);
+    }
+}
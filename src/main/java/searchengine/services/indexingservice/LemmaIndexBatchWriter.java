@@ -0,0 +1,175 @@
+package searchengine.services.indexingservice;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.model.PageModel;
+import searchengine.model.SiteModel;
+import searchengine.services.statisticsservice.SiteStatisticsCounters;
+import java.util.*;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LemmaIndexBatchWriter {
+    private static final String INSERT_LEMMA_SQL =
+            "INSERT INTO lemmas (site_id, lemma, frequency) VALUES (?, ?, 0) " +
+                    "ON DUPLICATE KEY UPDATE id = id";
+    private static final String SELECT_SITE_LEMMAS_SQL = "SELECT id, lemma FROM lemmas WHERE site_id = ?";
+    private static final String SELECT_LEMMA_IDS_SQL =
+            "SELECT id, lemma FROM lemmas WHERE site_id = :siteId AND lemma IN (:lemmas)";
+    private static final String INSERT_INDEX_SQL =
+            "INSERT INTO indexes (page_id, lemma_id, rank_score, positions) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_FREQUENCY_SQL =
+            "UPDATE lemmas SET frequency = frequency + ? WHERE id = ?";
+    private static final String SELECT_PAGE_INDEXES_SQL =
+            "SELECT i.id, i.lemma_id, i.rank_score, i.positions, l.lemma FROM indexes i " +
+                    "JOIN lemmas l ON l.id = i.lemma_id WHERE i.page_id = ?";
+    private static final String UPDATE_INDEX_SQL = "UPDATE indexes SET rank_score = ?, positions = ? WHERE id = ?";
+    private static final String DELETE_INDEX_SQL = "DELETE FROM indexes WHERE id = ?";
+    private static final String DELETE_PAGE_INDEXES_SQL = "DELETE FROM indexes WHERE page_id = ?";
+    private static final String DELETE_PAGE_SQL = "DELETE FROM pages WHERE id = ?";
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final LemmaDictionaryCache lemmaDictionaryCache;
+    private final SiteStatisticsCounters siteStatisticsCounters;
+    @Value("${jdbc-settings.batch-size:500}")
+    private int batchSize;
+    @Value("${jdbc-settings.frequency-flush-pages:200}")
+    private int frequencyFlushPages;
+
+    @Transactional
+    public void write(PageModel pageModel, Map<String, Integer> lemmas, Map<String, byte[]> positions) {
+        siteStatisticsCounters.pageAdded(pageModel.getSite().getId());
+        if (lemmas.isEmpty()) {
+            return;
+        }
+        LemmaDictionary dictionary = lemmaDictionaryCache.forSite(pageModel.getSite());
+        insertIndexes(pageModel, dictionary, lemmas, positions);
+        log.debug("Saved {} indexes for page {}", lemmas.size(), pageModel.getId());
+    }
+
+    @Transactional
+    public void rewrite(PageModel pageModel, Map<String, Integer> lemmas, Map<String, byte[]> positions) {
+        LemmaDictionary dictionary = lemmaDictionaryCache.forSite(pageModel.getSite());
+        Map<String, IndexedLemma> indexedLemmas = loadPageIndexes(pageModel.getId(), dictionary);
+        List<IndexedLemma> removedLemmas = new ArrayList<>();
+        List<IndexedLemma> changedLemmas = new ArrayList<>();
+        indexedLemmas.values().forEach(indexedLemma -> {
+            Integer count = lemmas.get(indexedLemma.lemma());
+            if (count == null) {
+                removedLemmas.add(indexedLemma);
+            } else if (count != indexedLemma.rankScore()
+                    || !Arrays.equals(positions.get(indexedLemma.lemma()), indexedLemma.positions())) {
+                changedLemmas.add(indexedLemma);
+            }
+        });
+        Map<String, Integer> addedLemmas = new HashMap<>(lemmas);
+        addedLemmas.keySet().removeAll(indexedLemmas.keySet());
+
+        jdbcTemplate.batchUpdate(DELETE_INDEX_SQL, removedLemmas, batchSize,
+                (ps, indexedLemma) -> ps.setInt(1, indexedLemma.indexId()));
+        removedLemmas.forEach(indexedLemma -> dictionary.decrementFrequency(indexedLemma.lemma()));
+        jdbcTemplate.batchUpdate(UPDATE_INDEX_SQL, changedLemmas, batchSize, (ps, indexedLemma) -> {
+            ps.setFloat(1, lemmas.get(indexedLemma.lemma()));
+            ps.setBytes(2, positions.get(indexedLemma.lemma()));
+            ps.setInt(3, indexedLemma.indexId());
+        });
+        if (!addedLemmas.isEmpty()) {
+            insertIndexes(pageModel, dictionary, addedLemmas, positions);
+        }
+        log.debug("Page {} reindexed: {} added, {} removed, {} changed lemmas", pageModel.getId(),
+                addedLemmas.size(), removedLemmas.size(), changedLemmas.size());
+    }
+
+    @Transactional
+    public void removePage(SiteModel siteModel, int pageId) {
+        LemmaDictionary dictionary = lemmaDictionaryCache.forSite(siteModel);
+        loadPageIndexes(pageId, dictionary).keySet().forEach(dictionary::decrementFrequency);
+        jdbcTemplate.update(DELETE_PAGE_INDEXES_SQL, pageId);
+        jdbcTemplate.update(DELETE_PAGE_SQL, pageId);
+        siteStatisticsCounters.pageRemoved(siteModel.getId());
+        log.debug("Removed page {} of site {}", pageId, siteModel.getName());
+    }
+
+    public void preloadDictionary(SiteModel siteModel) {
+        LemmaDictionary dictionary = lemmaDictionaryCache.forSite(siteModel);
+        if (dictionary.size() > 0) {
+            return;
+        }
+        jdbcTemplate.query(SELECT_SITE_LEMMAS_SQL,
+                rs -> { dictionary.putId(rs.getString("lemma"), rs.getInt("id")); }, siteModel.getId());
+        log.debug("Preloaded {} lemmas for site {}", dictionary.size(), siteModel.getName());
+    }
+
+    public boolean isFlushDue(SiteModel siteModel) {
+        return lemmaDictionaryCache.forSite(siteModel).pageIndexed(frequencyFlushPages);
+    }
+
+    @Transactional
+    public void flushFrequencies(SiteModel siteModel) {
+        List<LemmaDictionary.FrequencyDelta> deltas = lemmaDictionaryCache.forSite(siteModel).drainFrequencyDeltas();
+        jdbcTemplate.batchUpdate(UPDATE_FREQUENCY_SQL, deltas, batchSize, (ps, delta) -> {
+            ps.setLong(1, delta.delta());
+            ps.setInt(2, delta.lemmaId());
+        });
+        log.debug("Flushed {} lemma frequencies for site {}", deltas.size(), siteModel.getName());
+    }
+
+    private void insertIndexes(PageModel pageModel, LemmaDictionary dictionary, Map<String, Integer> lemmas,
+                               Map<String, byte[]> positions) {
+        resolveLemmaIds(pageModel.getSite().getId(), dictionary, lemmas.keySet());
+        List<String> pageLemmas = new ArrayList<>(lemmas.keySet());
+        jdbcTemplate.batchUpdate(INSERT_INDEX_SQL, pageLemmas, batchSize, (ps, lemma) -> {
+            ps.setInt(1, pageModel.getId());
+            ps.setInt(2, dictionary.getId(lemma));
+            ps.setFloat(3, lemmas.get(lemma));
+            ps.setBytes(4, positions.get(lemma));
+        });
+        pageLemmas.forEach(dictionary::incrementFrequency);
+    }
+
+    private Map<String, IndexedLemma> loadPageIndexes(int pageId, LemmaDictionary dictionary) {
+        Map<String, IndexedLemma> indexedLemmas = new HashMap<>();
+        jdbcTemplate.query(SELECT_PAGE_INDEXES_SQL, rs -> {
+            String lemma = rs.getString("lemma");
+            dictionary.putId(lemma, rs.getInt("lemma_id"));
+            indexedLemmas.put(lemma, new IndexedLemma(rs.getInt("id"), lemma, rs.getFloat("rank_score"),
+                    rs.getBytes("positions")));
+        }, pageId);
+        return indexedLemmas;
+    }
+
+    private void resolveLemmaIds(int siteId, LemmaDictionary dictionary, Set<String> lemmas) {
+        List<String> unresolvedLemmas = lemmas.stream()
+                .filter(lemma -> dictionary.getId(lemma) == null)
+                .sorted()
+                .toList();
+        if (unresolvedLemmas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_LEMMA_SQL, unresolvedLemmas, batchSize, (ps, lemma) -> {
+            ps.setInt(1, siteId);
+            ps.setString(2, lemma);
+        });
+        int[] newLemmas = new int[1];
+        for (int i = 0; i < unresolvedLemmas.size(); i += batchSize) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("siteId", siteId)
+                    .addValue("lemmas", unresolvedLemmas.subList(i, Math.min(i + batchSize, unresolvedLemmas.size())));
+            namedParameterJdbcTemplate.query(SELECT_LEMMA_IDS_SQL, parameters, rs -> {
+                if (dictionary.putId(rs.getString("lemma"), rs.getInt("id"))) {
+                    newLemmas[0]++;
+                }
+            });
+        }
+        siteStatisticsCounters.lemmasAdded(siteId, newLemmas[0]);
+    }
+
+    private record IndexedLemma(int indexId, String lemma, float rankScore, byte[] positions) {
+    }
+}
@@ -6,11 +6,13 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class PaginationHandler {
+    private static final Pattern GOTO_PAGE_PATTERN = Pattern.compile("gotoPage\\((\\d+)\\);");
+
     public static Set<String> discoverPaginatedUrls(Document doc, String baseUrl, String parentUrl) {
         Set<String> pageUrls = new HashSet<>();
         doc.select("a[onclick]").forEach(link -> {
             String onclick = link.attr("onclick");
-            Matcher matcher = Pattern.compile("gotoPage\\((\\d+)\\);").matcher(onclick);
+            Matcher matcher = GOTO_PAGE_PATTERN.matcher(onclick);
             if (matcher.find()) {
                 String pageNum = matcher.group(1);
                 String jsUrl = baseUrl.endsWith("/") ? baseUrl + "page=" + pageNum : baseUrl + "/page=" + pageNum + "/";
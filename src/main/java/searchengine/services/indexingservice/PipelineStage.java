@@ -0,0 +1,73 @@
+package searchengine.services.indexingservice;
+import io.micrometer.core.instrument.Timer;
+import searchengine.dto.indexing.PipelineStageStatistics;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PipelineStage {
+    private final String name;
+    private final int parallelism;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final Timer taskTimer;
+    private final Timer waitTimer;
+    private final LongAdder completedTasks = new LongAdder();
+    private final long startTime = System.nanoTime();
+
+    public PipelineStage(String name, int parallelism, int queueCapacity, CrawlMetrics crawlMetrics) {
+        this.name = name;
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+        this.taskTimer = crawlMetrics.stageTimer(name);
+        this.waitTimer = crawlMetrics.stageWaitTimer(name);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                parallelism,
+                parallelism,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, name + "-" + threadNumber.incrementAndGet()),
+                PipelineStage::waitForQueueSpace);
+    }
+
+    public void submit(Runnable task) {
+        long submitTime = System.nanoTime();
+        executor.execute(() -> {
+            try {
+                taskTimer.record(task);
+            } finally {
+                completedTasks.increment();
+            }
+        });
+        waitTimer.record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+    }
+
+    public PipelineStageStatistics getStatistics() {
+        return getStatistics(name, parallelism, executor.getQueue().size(), queueCapacity,
+                completedTasks.sum(), startTime);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    static PipelineStageStatistics getStatistics(String name, int parallelism, int queueDepth, int queueCapacity,
+                                                 long completedTasks, long startTime) {
+        double elapsedSeconds = Math.max(1e-3, (System.nanoTime() - startTime) / 1e9);
+        return new PipelineStageStatistics(name, parallelism, queueDepth, queueCapacity,
+                completedTasks, completedTasks / elapsedSeconds);
+    }
+
+    private static void waitForQueueSpace(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Pipeline stage has been shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for pipeline stage queue", interruptedException);
+        }
+    }
+}
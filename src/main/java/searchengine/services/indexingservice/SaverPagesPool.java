@@ -1,107 +1,371 @@
 package searchengine.services.indexingservice;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
 import org.jsoup.HttpStatusException;
-import org.jsoup.Jsoup;
+import org.jsoup.UnsupportedMimeTypeException;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.springframework.dao.DataIntegrityViolationException;
+import searchengine.invertedindex.PositionCodec;
+import searchengine.lemmafinder.LemmaFinder;
+import searchengine.lemmafinder.LemmaPositions;
+import searchengine.model.PageContent;
 import searchengine.model.PageModel;
+import searchengine.model.PageTextModel;
 import searchengine.model.SiteModel;
 import searchengine.model.SiteStatus;
-import searchengine.repositories.IndexModelRepository;
-import searchengine.repositories.LemmaModelRepository;
 import searchengine.repositories.PageModelRepository;
+import searchengine.repositories.PageTextModelRepository;
 import searchengine.repositories.SiteModelRepository;
+import searchengine.repositories.projections.PageStateView;
+import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 @RequiredArgsConstructor
 @Slf4j
-public class SaverPagesPool extends RecursiveAction {
+public class SaverPagesPool {
+    private static final long FRONTIER_POLL_MILLIS = 100;
+    private static final int MAX_PATH_LENGTH = 700;
+    private static final Pattern EXCLUDED_EXTENSIONS_PATTERN =
+            Pattern.compile("(?iu).*\\.(pdf|jpg|png|gif|zip|webp|jpeg|eps|doc|xlsx)$");
     private final SiteModel siteModel;
     private final String url;
     private final SiteModelRepository siteModelRepository;
     private final PageModelRepository pageModelRepository;
+    private final PageTextModelRepository pageTextModelRepository;
     private final String userAgent;
     private final String referrer;
     private final InterruptionChecker interruptionChecker;
-    private final LemmaModelRepository lemmaModelRepository;
-    private final IndexModelRepository indexModelRepository;
-
-    @Override
-    protected void compute() {
-        String relativePath = getRelativePath(url);
-        synchronized (pageModelRepository) {
-            if (pageModelRepository.existsBySiteAndPath(siteModel, relativePath)) {
-                log.debug("Skipping existing page: {}", url);
-                return;
+    private final LemmaIndexBatchWriter lemmaIndexBatchWriter;
+    private final CrawlEngine crawlEngine;
+    private final CrawlMode crawlMode;
+    private final Map<String, PageStateView> knownPages;
+    private final CrawlProgress crawlProgress;
+    private final CrawlCheckpoint crawlCheckpoint;
+    private final BlockingQueue<String> frontier = new LinkedBlockingQueue<>();
+    private final Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> retries = new ConcurrentHashMap<>();
+    private final Set<String> resumedUrls = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingUrls = new AtomicInteger();
+    private final AtomicBoolean stopHandled = new AtomicBoolean();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final LemmaFinder lemmaFinder = new LemmaFinder();
+
+    public CompletableFuture<Void> crawl() {
+        enqueue(url);
+        if (crawlMode == CrawlMode.INCREMENTAL) {
+            String siteRoot = siteModel.getUrl().substring(0, siteModel.getUrl().length() - 1);
+            knownPages.keySet().forEach(path -> enqueue(siteRoot + path));
+        }
+        return start();
+    }
+
+    public CompletableFuture<Void> resume(CrawlCheckpoint.State state) {
+        visitedUrls.addAll(state.visitedUrls());
+        resumedUrls.addAll(state.pendingUrls());
+        state.pendingUrls().forEach(this::schedule);
+        log.info("Resuming site {} with {} pending urls", siteModel.getName(), state.pendingUrls().size());
+        return start();
+    }
+
+    private CompletableFuture<Void> start() {
+        if (pendingUrls.get() == 0) {
+            completion.complete(null);
+            return completion;
+        }
+        crawlEngine.startFetchWorkers(frontier, this::fetchLoop);
+        return completion;
+    }
+
+    private void fetchLoop() {
+        try {
+            while (!completion.isDone()) {
+                String pageUrl = frontier.poll(FRONTIER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (pageUrl != null) {
+                    fetch(pageUrl);
+                }
             }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            completion.completeExceptionally(interruptedException);
         }
-        getConnectionAndSaveDataIntoDb(relativePath);
     }
 
-    private void processPageLinks(Document document) {
-        List<SaverPagesPool> taskList = new ArrayList<>();
-        Set<String> visitedUrls = new HashSet<>();
-        for (Element element : document.select("a[href]")) {
-            String childUrl = element.absUrl("href");
-            if (interruptionChecker.isInterrupted()) {
-                changeSiteStatusToFailedByStop(siteModelRepository);
+    private void fetch(String pageUrl) throws InterruptedException {
+        if (interruptionChecker.isInterrupted()) {
+            if (stopHandled.compareAndSet(false, true)) {
+                if (crawlMode == CrawlMode.FULL || crawlMode == CrawlMode.RESUME) {
+                    changeSiteStatusToFailedByStop(siteModelRepository);
+                }
                 log.info("Interrupted processing site: {}", siteModel.getName());
+            }
+            finish();
+            return;
+        }
+        String relativePath = getRelativePath(pageUrl);
+        PageStateView knownPage = knownPages.get(relativePath);
+        boolean resumed = resumedUrls.contains(pageUrl);
+        try {
+            Connection.Response response = crawlEngine.fetch(pageUrl, userAgent, referrer,
+                    getConditionalHeaders(resumed ? null : knownPage));
+            crawlProgress.pageFetched();
+            if (response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                log.debug("Page {} has not been modified", pageUrl);
+                markDone(pageUrl);
+                return;
+            }
+            crawlEngine.parse(() -> parsePage(pageUrl, relativePath, knownPage, resumed, response));
+        } catch (SocketTimeoutException socketTimeoutException) {
+            log.warn("Timeout accessing {}: {}", pageUrl, socketTimeoutException.getMessage());
+            retryOrMarkFailed(pageUrl);
+        } catch (HttpStatusException httpStatusException) {
+            log.warn("Url fetching error for {}: {}", pageUrl, httpStatusException.getMessage());
+            if (knownPage != null && isGone(httpStatusException.getStatusCode())) {
+                removeGonePage(knownPage);
+            }
+            if (isRetryable(httpStatusException.getStatusCode())) {
+                retryOrMarkFailed(pageUrl);
+            } else {
+                crawlProgress.pageFailed();
+                markDone(pageUrl);
+            }
+        } catch (UnsupportedMimeTypeException unsupportedMimeTypeException) {
+            log.warn("Url fetching error for {}: {}", pageUrl, unsupportedMimeTypeException.getMessage());
+            crawlProgress.pageFailed();
+            markDone(pageUrl);
+        } catch (InterruptedException interruptedException) {
+            finish();
+            throw interruptedException;
+        } catch (Exception exception) {
+            log.warn("Page {} fetching failed: {}", pageUrl, exception.getMessage());
+            changeSiteStatusToFailedByError(siteModelRepository, exception.getMessage());
+            markFailed(pageUrl);
+        }
+    }
+
+    private void parsePage(String pageUrl, String relativePath, PageStateView knownPage, boolean resumed,
+                           Connection.Response response) {
+        try {
+            String contentHash = getContentHash(response.bodyAsBytes());
+            if (knownPage != null && !resumed && contentHash.equals(knownPage.getContentHash())) {
+                log.debug("Page {} content is unchanged", pageUrl);
+                crawlEngine.persist(() -> saveValidators(pageUrl, knownPage, response));
                 return;
             }
-            if (isValidUrl(childUrl) && !visitedUrls.contains(childUrl)) {
-                visitedUrls.add(childUrl);
-                SaverPagesPool task = new SaverPagesPool(
-                        siteModel,
-                        childUrl,
-                        siteModelRepository,
-                        pageModelRepository,
-                        userAgent,
-                        referrer,
-                        interruptionChecker,
-                        lemmaModelRepository,
-                        indexModelRepository);
-                task.fork();
-                taskList.add(task);
+            Document document = response.parse();
+            ParsedPage parsedPage = new ParsedPage(pageUrl, relativePath, knownPage, response.statusCode(),
+                    response.header("ETag"), response.header("Last-Modified"), contentHash,
+                    document.outerHtml(), document.title(), document.text());
+            if (crawlMode != CrawlMode.SINGLE_PAGE && siteModel.getSiteStatus() != SiteStatus.FAILED) {
+                processPaginatedContent(document, pageUrl);
+                processPageLinks(document);
+            }
+            crawlEngine.lemmatize(() -> lemmatizePage(parsedPage));
+        } catch (Exception exception) {
+            log.warn("Page {} processing failed: {}", pageUrl, exception.getMessage());
+            changeSiteStatusToFailedByError(siteModelRepository, exception.getMessage());
+            markFailed(pageUrl);
+        }
+    }
+
+    private void lemmatizePage(ParsedPage parsedPage) {
+        try {
+            Map<String, Integer> lemmas;
+            Map<String, byte[]> positions;
+            if (crawlEngine.isRecordPositions()) {
+                HashMap<String, LemmaPositions> lemmaPositions = lemmaFinder.collectLemmaPositions(parsedPage.text());
+                lemmas = new HashMap<>(lemmaPositions.size());
+                positions = new HashMap<>(lemmaPositions.size());
+                lemmaPositions.forEach((lemma, pagePositions) -> {
+                    lemmas.put(lemma, pagePositions.size());
+                    positions.put(lemma, PositionCodec.encode(pagePositions.toArray()));
+                });
+            } else {
+                lemmas = lemmaFinder.collectLemmas(parsedPage.text());
+                positions = Map.of();
+            }
+            crawlEngine.getCrawlMetrics().recordPageLemmas(lemmas.size());
+            PageContent pageContent = PageContent.encode(parsedPage.html(), crawlEngine.getPageCodec());
+            crawlEngine.persist(() -> persistPage(parsedPage, pageContent, lemmas, positions));
+        } catch (Exception exception) {
+            log.warn("Page {} lemmatization failed: {}", parsedPage.relativePath(), exception.getMessage());
+            markFailed(parsedPage.pageUrl());
+        }
+    }
+
+    private void persistPage(ParsedPage parsedPage, PageContent pageContent, Map<String, Integer> lemmas,
+                             Map<String, byte[]> positions) {
+        if (isStopping()) {
+            leavePending(parsedPage.pageUrl());
+            return;
+        }
+        try {
+            boolean existingPage = parsedPage.knownPage() != null;
+            int tokenCount = lemmas.values().stream().mapToInt(Integer::intValue).sum();
+            PageModel pageModel = existingPage
+                    ? updatePageModel(parsedPage.knownPage().getId(), parsedPage, pageContent, tokenCount)
+                    : createAndSavePageModel(parsedPage, pageContent, tokenCount);
+            siteModel.setStatusTime(LocalDateTime.now());
+            siteModelRepository.saveAndFlush(siteModel);
+            if (pageModel != null) {
+                createAndSavePageText(parsedPage, pageModel, existingPage);
+                new SaverLemmasAndIndexes(lemmaIndexBatchWriter, pageModel, lemmas, positions, existingPage,
+                        crawlEngine.getCrawlMetrics()).saveLemmaAndIndex();
+                crawlProgress.pageIndexed(lemmas.size());
             }
+            markDone(parsedPage.pageUrl());
+        } catch (Exception exception) {
+            log.warn("Page {} saving failed: {}", parsedPage.relativePath(), exception.getMessage());
+            changeSiteStatusToFailedByError(siteModelRepository, exception.getMessage());
+            markFailed(parsedPage.pageUrl());
+        }
+    }
+
+    private void saveValidators(String pageUrl, PageStateView knownPage, Connection.Response response) {
+        try {
+            pageModelRepository.updateValidators(knownPage.getId(),
+                    response.header("ETag"), response.header("Last-Modified"));
+        } catch (Exception exception) {
+            log.warn("Page {} validators saving failed: {}", knownPage.getPath(), exception.getMessage());
+        } finally {
+            markDone(pageUrl);
+        }
+    }
+
+    private void enqueue(String pageUrl) {
+        String normalizedUrl = UrlNormalizer.normalize(pageUrl);
+        if (normalizedUrl == null || !isValidUrl(normalizedUrl) || !visitedUrls.add(normalizedUrl)) {
+            return;
+        }
+        crawlCheckpoint.queued(normalizedUrl);
+        schedule(normalizedUrl);
+    }
+
+    private void schedule(String pageUrl) {
+        pendingUrls.incrementAndGet();
+        crawlProgress.pageDiscovered();
+        frontier.add(pageUrl);
+    }
+
+    private void markDone(String pageUrl) {
+        crawlCheckpoint.done(pageUrl);
+        finish();
+    }
+
+    private void leavePending(String pageUrl) {
+        log.debug("Page {} is left pending for resume", pageUrl);
+        finish();
+    }
+
+    private void markFailed(String pageUrl) {
+        crawlProgress.pageFailed();
+        crawlCheckpoint.failed(pageUrl);
+        finish();
+    }
+
+    private void retryOrMarkFailed(String pageUrl) {
+        int attempt = retries.merge(pageUrl, 1, Integer::sum);
+        if (attempt > crawlEngine.getMaxRetries() || interruptionChecker.isInterrupted()) {
+            markFailed(pageUrl);
+            return;
+        }
+        log.debug("Retrying {} (attempt {} of {})", pageUrl, attempt, crawlEngine.getMaxRetries());
+        crawlCheckpoint.failed(pageUrl);
+        frontier.add(pageUrl);
+    }
+
+    private boolean isStopping() {
+        return interruptionChecker.isInterrupted() || siteModel.getSiteStatus() == SiteStatus.FAILED;
+    }
+
+    private void finish() {
+        crawlProgress.pageFinished();
+        if (pendingUrls.decrementAndGet() == 0) {
+            completion.complete(null);
+        }
+    }
+
+    private void processPageLinks(Document document) {
+        for (Element element : document.select("a[href]")) {
+            enqueue(element.absUrl("href"));
         }
-        taskList.forEach(SaverPagesPool::join);
     }
 
     private boolean isValidUrl(String url) {
         return url.startsWith(siteModel.getUrl()) &&
-                !url.contains("#") &&
-                !url.matches("(?iu).*\\.(pdf|jpg|png|gif|zip|webp|jpeg|eps|doc|xlsx)$");
+                url.length() - siteModel.getUrl().length() < MAX_PATH_LENGTH &&
+                !EXCLUDED_EXTENSIONS_PATTERN.matcher(url).matches();
+    }
+
+    private PageModel createAndSavePageModel(ParsedPage parsedPage, PageContent pageContent, int tokenCount) {
+        PageModel pageModel = PageModel.builder()
+                .path(parsedPage.relativePath())
+                .code(parsedPage.statusCode())
+                .content(pageContent)
+                .etag(parsedPage.etag())
+                .lastModified(parsedPage.lastModified())
+                .contentHash(parsedPage.contentHash())
+                .tokenCount(tokenCount)
+                .site(siteModel)
+                .build();
+        try {
+            pageModelRepository.saveAndFlush(pageModel);
+        } catch (DataIntegrityViolationException duplicatePageException) {
+            log.debug("Page {} is already stored", parsedPage.relativePath());
+            return null;
+        }
+        log.debug("Created new page: {}", parsedPage.relativePath());
+        return pageModel;
     }
 
-    private PageModel createAndSavePageModel(Document document, String relativePath) {
-        synchronized (pageModelRepository) {
-                log.debug("Created new page: {}", relativePath);
-                PageModel pageModel = PageModel.builder()
-                        .path(relativePath)
-                        .code(document.connection().response().statusCode())
-                        .content(document.outerHtml())
-                        .site(siteModel)
-                        .build();
-                pageModelRepository.saveAndFlush(pageModel);
-                return pageModel;
+    private PageModel updatePageModel(int pageId, ParsedPage parsedPage, PageContent pageContent, int tokenCount) {
+        int updatedPages = pageModelRepository.updateContent(pageId, parsedPage.statusCode(), pageContent,
+                parsedPage.etag(), parsedPage.lastModified(), parsedPage.contentHash(), tokenCount);
+        if (updatedPages == 0) {
+            return null;
         }
+        log.debug("Updated page: {}", parsedPage.relativePath());
+        return PageModel.builder()
+                .id(pageId)
+                .path(parsedPage.relativePath())
+                .site(siteModel)
+                .build();
+    }
+
+    private void createAndSavePageText(ParsedPage parsedPage, PageModel pageModel, boolean existingPage) {
+        PageTextModel pageTextModel = PageTextModel.builder()
+                .pageId(existingPage ? pageModel.getId() : null)
+                .page(pageModel)
+                .title(parsedPage.title())
+                .text(parsedPage.text())
+                .build();
+        pageTextModelRepository.save(pageTextModel);
     }
 
     private void changeSiteStatusToFailedByStop(SiteModelRepository siteModelRepository) {
-        siteModelRepository.findAll().forEach(siteModel -> {
-            siteModel.setSiteStatus(SiteStatus.FAILED);
-            siteModel.setStatusTime(LocalDateTime.now());
-            siteModel.setLastError("Indexing has been stopped by user");
-            siteModelRepository.saveAndFlush(siteModel);
-        });
+        siteModel.setSiteStatus(SiteStatus.FAILED);
+        siteModel.setStatusTime(LocalDateTime.now());
+        siteModel.setLastError("Indexing has been stopped by user");
+        siteModelRepository.saveAndFlush(siteModel);
     }
 
     private void changeSiteStatusToFailedByError(SiteModelRepository siteModelRepository, String exception) {
-        siteModel.setSiteStatus(SiteStatus.FAILED);
+        if (crawlMode == CrawlMode.FULL || crawlMode == CrawlMode.RESUME) {
+            siteModel.setSiteStatus(SiteStatus.FAILED);
+        }
         siteModel.setLastError(exception);
         siteModel.setStatusTime(LocalDateTime.now());
         siteModelRepository.saveAndFlush(siteModel);
@@ -109,15 +373,38 @@ public class SaverPagesPool extends RecursiveAction {
 
     private void processPaginatedContent(Document document, String baseUrl) {
         Set<String> paginatedUrls = PaginationHandler.discoverPaginatedUrls(document, baseUrl, siteModel.getUrl());
-        if (!paginatedUrls.isEmpty()) {
-            paginatedUrls.forEach(pageUrl -> {
-                String relativePath = getRelativePath(pageUrl);
-                if(!isValidUrl(pageUrl) || pageModelRepository.existsBySiteAndPath(siteModel, relativePath)) {
-                    return;
-                }
-                getConnectionAndSaveDataIntoDb(relativePath);
-            });
+        paginatedUrls.forEach(this::enqueue);
+    }
+
+    private Map<String, String> getConditionalHeaders(PageStateView knownPage) {
+        Map<String, String> headers = new HashMap<>();
+        if (knownPage != null && knownPage.getEtag() != null) {
+            headers.put("If-None-Match", knownPage.getEtag());
+        }
+        if (knownPage != null && knownPage.getLastModified() != null) {
+            headers.put("If-Modified-Since", knownPage.getLastModified());
         }
+        return headers;
+    }
+
+    private void removeGonePage(PageStateView knownPage) {
+        try {
+            lemmaIndexBatchWriter.removePage(siteModel, knownPage.getId());
+        } catch (Exception exception) {
+            log.warn("Removing page {} failed: {}", knownPage.getPath(), exception.getMessage());
+        }
+    }
+
+    private boolean isRetryable(int statusCode) {
+        return statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR || statusCode == 429;
+    }
+
+    private boolean isGone(int statusCode) {
+        return statusCode == HttpURLConnection.HTTP_NOT_FOUND || statusCode == HttpURLConnection.HTTP_GONE;
+    }
+
+    private String getContentHash(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
     }
 
     private String getRelativePath(String pageUrl) {
@@ -127,31 +414,7 @@ public class SaverPagesPool extends RecursiveAction {
         return null;
     }
 
-    private void getConnectionAndSaveDataIntoDb(String relativePath) {
-        try {
-            Document document = Jsoup.connect(url)
-                    .userAgent(userAgent)
-                    .referrer(referrer)
-                    .timeout(6000)
-                    .get();
-            PageModel pageModel = createAndSavePageModel(document, relativePath);
-            siteModel.setStatusTime(LocalDateTime.now());
-            siteModelRepository.saveAndFlush(siteModel);
-            if (pageModel != null && pageModel.getSite().getSiteStatus() == SiteStatus.INDEXING) {
-                new SaverLemmasAndIndexes(lemmaModelRepository, indexModelRepository, pageModel).saveLemmaAndIndex();
-                processPaginatedContent(document, url);
-                processPageLinks(document);
-            }
-        } catch (SocketTimeoutException socketTimeoutException) {
-            log.warn("Timeout accessing {}: {}", url, socketTimeoutException.getMessage());
-        } catch (HttpStatusException httpStatusException) {
-            log.warn("Url fetching error for {}: {}", url, httpStatusException.getMessage());
-        } catch (Exception exception) {
-            log.warn("Page {} processing failed: {}", url, exception.getMessage());
-            changeSiteStatusToFailedByError(siteModelRepository, exception.getMessage());
-        } finally {
-            siteModelRepository.flush();
-            pageModelRepository.flush();
-        }
+    private record ParsedPage(String pageUrl, String relativePath, PageStateView knownPage, int statusCode, String etag,
+                              String lastModified, String contentHash, String html, String title, String text) {
     }
-}
\ No newline at end of file
+}
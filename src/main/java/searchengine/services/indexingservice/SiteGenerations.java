@@ -0,0 +1,101 @@
+package searchengine.services.indexingservice;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import searchengine.invertedindex.InvertedIndex;
+import searchengine.model.SiteModel;
+import searchengine.model.SiteStatus;
+import searchengine.repositories.SiteModelRepository;
+import searchengine.services.statisticsservice.SiteStatisticsCounters;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SiteGenerations {
+    private final SiteModelRepository siteModelRepository;
+    private final SitePurger sitePurger;
+    private final InvertedIndex invertedIndex;
+    private final LemmaDictionaryCache lemmaDictionaryCache;
+    private final SiteStatisticsCounters siteStatisticsCounters;
+    private final ExecutorService cleanupExecutor = Executors.newSingleThreadExecutor();
+
+    public SiteModel createShadow(String url, String name) {
+        SiteModel siteModel = SiteModel.builder()
+                .siteStatus(SiteStatus.INDEXING)
+                .statusTime(LocalDateTime.now())
+                .url(url)
+                .name(name).build();
+        return siteModelRepository.saveAndFlush(siteModel);
+    }
+
+    public void activate(SiteModel siteModel) {
+        List<SiteModel> otherGenerations = findOtherGenerations(siteModel);
+        if (siteModel.getSiteStatus() == SiteStatus.FAILED) {
+            discard(siteModel, otherGenerations);
+            return;
+        }
+        invertedIndex.rebuildSite(siteModel);
+        if (siteModel.getSiteStatus() == SiteStatus.INDEXING) {
+            siteModel.setSiteStatus(SiteStatus.INDEXED);
+            siteModel.setStatusTime(LocalDateTime.now());
+            siteModelRepository.saveAndFlush(siteModel);
+            invertedIndex.advanceGeneration();
+        }
+        log.info("Site {} generation {} is active, {} previous generations scheduled for cleanup",
+                siteModel.getName(), siteModel.getId(), otherGenerations.size());
+        if (!otherGenerations.isEmpty()) {
+            cleanupExecutor.execute(() -> otherGenerations.forEach(this::purge));
+        }
+    }
+
+    public void keepForResume(SiteModel siteModel) {
+        log.info("Site {} generation {} is interrupted and kept for resume", siteModel.getName(), siteModel.getId());
+        // without an indexed generation the interrupted one is what search serves until the resume finishes
+        if (siteModel.getSiteStatus() == SiteStatus.FAILED && !hasIndexedGeneration(findOtherGenerations(siteModel))) {
+            invertedIndex.rebuildSite(siteModel);
+        }
+    }
+
+    @PreDestroy
+    public void stopCleanupExecutor() {
+        cleanupExecutor.shutdown();
+    }
+
+    private void discard(SiteModel siteModel, List<SiteModel> otherGenerations) {
+        if (!hasIndexedGeneration(otherGenerations)) {
+            log.info("Site {} generation {} has failed and is kept, no indexed generation can serve instead",
+                    siteModel.getName(), siteModel.getId());
+            invertedIndex.rebuildSite(siteModel);
+            return;
+        }
+        log.info("Site {} generation {} has failed and is scheduled for cleanup, the previous one keeps serving",
+                siteModel.getName(), siteModel.getId());
+        cleanupExecutor.execute(() -> purge(siteModel));
+    }
+
+    private List<SiteModel> findOtherGenerations(SiteModel siteModel) {
+        return siteModelRepository.findAllByUrl(siteModel.getUrl()).stream()
+                .filter(other -> !other.getId().equals(siteModel.getId()))
+                .toList();
+    }
+
+    private boolean hasIndexedGeneration(List<SiteModel> generations) {
+        return generations.stream().anyMatch(generation -> generation.getSiteStatus() == SiteStatus.INDEXED);
+    }
+
+    private void purge(SiteModel siteModel) {
+        try {
+            sitePurger.purge(siteModel);
+            invertedIndex.removeSite(siteModel);
+            lemmaDictionaryCache.remove(siteModel.getId());
+            siteStatisticsCounters.remove(siteModel.getId());
+        } catch (Exception exception) {
+            log.error("Site {} generation {} cleanup failed", siteModel.getName(), siteModel.getId(), exception);
+        }
+    }
+}
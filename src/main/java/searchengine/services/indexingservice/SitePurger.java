@@ -0,0 +1,75 @@
+package searchengine.services.indexingservice;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import searchengine.model.SiteModel;
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SitePurger {
+    private static final String SELECT_PAGE_IDS_SQL =
+            "SELECT id FROM pages WHERE site_id = ? AND id > ? ORDER BY id LIMIT ?";
+    private static final String DELETE_INDEXES_SQL = "DELETE FROM indexes WHERE page_id IN (:pageIds) LIMIT :limit";
+    private static final String DELETE_PAGE_TEXTS_SQL = "DELETE FROM page_texts WHERE page_id IN (:pageIds)";
+    private static final String DELETE_LEMMAS_SQL = "DELETE FROM lemmas WHERE site_id = ? LIMIT ?";
+    private static final String DELETE_PAGES_SQL = "DELETE FROM pages WHERE site_id = ? LIMIT ?";
+    private static final String DELETE_SITE_SQL = "DELETE FROM sites WHERE id = ?";
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final CrawlMetrics crawlMetrics;
+    @Value("${jdbc-settings.purge-chunk-size:5000}")
+    private int chunkSize;
+
+    public void purge(SiteModel siteModel) {
+        long start = System.nanoTime();
+        long indexes = 0;
+        long pageTexts = 0;
+        int lastPageId = 0;
+        List<Integer> pageIds;
+        do {
+            pageIds = jdbcTemplate.queryForList(SELECT_PAGE_IDS_SQL, Integer.class,
+                    siteModel.getId(), lastPageId, chunkSize);
+            if (pageIds.isEmpty()) {
+                break;
+            }
+            MapSqlParameterSource parameters = new MapSqlParameterSource("pageIds", pageIds)
+                    .addValue("limit", chunkSize);
+            indexes += deleteInChunks(DELETE_INDEXES_SQL, parameters);
+            pageTexts += namedParameterJdbcTemplate.update(DELETE_PAGE_TEXTS_SQL, parameters);
+            lastPageId = pageIds.get(pageIds.size() - 1);
+        } while (pageIds.size() == chunkSize);
+        long lemmas = deleteInChunks(DELETE_LEMMAS_SQL, siteModel.getId());
+        long pages = deleteInChunks(DELETE_PAGES_SQL, siteModel.getId());
+        jdbcTemplate.update(DELETE_SITE_SQL, siteModel.getId());
+        long elapsedNanos = System.nanoTime() - start;
+        crawlMetrics.recordSitePurge(elapsedNanos);
+        log.info("Site {} ({}) has been purged in {} ms: {} indexes, {} page texts, {} lemmas, {} pages",
+                siteModel.getName(), siteModel.getId(), elapsedNanos / 1_000_000, indexes, pageTexts, lemmas, pages);
+    }
+
+    private long deleteInChunks(String sql, int siteId) {
+        long deleted = 0;
+        int chunkDeleted;
+        do {
+            chunkDeleted = jdbcTemplate.update(sql, siteId, chunkSize);
+            deleted += chunkDeleted;
+        } while (chunkDeleted == chunkSize);
+        return deleted;
+    }
+
+    private long deleteInChunks(String sql, MapSqlParameterSource parameters) {
+        long deleted = 0;
+        int chunkDeleted;
+        do {
+            chunkDeleted = namedParameterJdbcTemplate.update(sql, parameters);
+            deleted += chunkDeleted;
+        } while (chunkDeleted == chunkSize);
+        return deleted;
+    }
+}
@@ -0,0 +1,41 @@
+package searchengine.services.indexingservice;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+public class UrlNormalizer {
+    // site urls are stored as normalized roots with a trailing slash, so crawled urls can be matched by prefix
+    public static String normalizeSiteUrl(String url) {
+        String normalized = normalize(url);
+        String siteUrl = normalized == null ? url.trim() : normalized;
+        return siteUrl.endsWith("/") ? siteUrl : siteUrl + "/";
+    }
+
+    public static String normalize(String url) {
+        try {
+            URI uri = new URI(url.trim());
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return null;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() == null ? uri.getRawAuthority() : uri.getHost().toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            boolean defaultPort = port == -1 ||
+                    (port == 80 && scheme.equals("http")) ||
+                    (port == 443 && scheme.equals("https"));
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            StringBuilder normalized = new StringBuilder(url.length())
+                    .append(scheme).append("://").append(host);
+            if (!defaultPort) {
+                normalized.append(':').append(port);
+            }
+            normalized.append(path);
+            if (uri.getRawQuery() != null) {
+                normalized.append('?').append(uri.getRawQuery());
+            }
+            return normalized.toString();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package searchengine.services.searchingservice;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+public class QueryPlan {
+    private static final int MIN_QUERY_WORD_LENGTH = 3;
+    private final Node root = new Node();
+
+    private QueryPlan() {
+    }
+
+    public static QueryPlan compile(String query, Collection<String> lemmas) {
+        QueryPlan queryPlan = new QueryPlan();
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            if (!isWordChar(query.charAt(i))) {
+                i++;
+                continue;
+            }
+            int wordStart = i;
+            while (i < length && isWordChar(query.charAt(i))) {
+                i++;
+            }
+            if (i - wordStart >= MIN_QUERY_WORD_LENGTH) {
+                queryPlan.addPrefix(query.substring(wordStart, i));
+            }
+        }
+        lemmas.forEach(queryPlan::addPrefix);
+        return queryPlan;
+    }
+
+    public List<Match> findMatches(String text) {
+        return findMatches(text, 0, text.length());
+    }
+
+    public List<Match> findMatches(String text, int from, int to) {
+        List<Match> matches = new ArrayList<>();
+        int length = text.length();
+        int i = from;
+        while (i > 0 && isWordChar(text.charAt(i - 1))) {
+            i--;
+        }
+        while (i < length && i < to) {
+            if (!isWordChar(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int wordStart = i;
+            Node node = root;
+            boolean matched = false;
+            while (i < length) {
+                char symbol = text.charAt(i);
+                if (!isWordChar(symbol)) {
+                    break;
+                }
+                if (node != null && !matched) {
+                    node = node.getChild(Character.toLowerCase(symbol));
+                    matched = node != null && node.terminal;
+                }
+                i++;
+            }
+            if (matched) {
+                matches.add(new Match(wordStart, i));
+            }
+        }
+        return matches;
+    }
+
+    private void addPrefix(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.getOrAddChild(Character.toLowerCase(prefix.charAt(i)));
+        }
+        node.terminal = true;
+    }
+
+    private static boolean isWordChar(char symbol) {
+        return Character.isLetterOrDigit(symbol) || symbol == '_';
+    }
+
+    public record Match(int start, int end) {
+    }
+
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal;
+
+        private Node getChild(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node getOrAddChild(char key) {
+            Node child = getChild(key);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = key;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
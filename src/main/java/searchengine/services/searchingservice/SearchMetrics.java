@@ -0,0 +1,32 @@
+package searchengine.services.searchingservice;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class SearchMetrics {
+    private final MeterRegistry meterRegistry;
+
+    public <T> T timePhase(String phase, Supplier<T> supplier) {
+        return Timer.builder("search.phase")
+                .description("Time spent in a search request phase")
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(supplier);
+    }
+
+    public void recordRequest(boolean cacheHit) {
+        meterRegistry.counter("search.requests", "cache", cacheHit ? "hit" : "miss").increment();
+    }
+
+    public void recordResults(int count) {
+        DistributionSummary.builder("search.results")
+                .description("Matched pages per search request")
+                .register(meterRegistry)
+                .record(count);
+    }
+}
@@ -0,0 +1,95 @@
+package searchengine.services.searchingservice;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import searchengine.dto.searching.SearchCacheStatistics;
+import searchengine.dto.searching.SearchingResponse;
+import searchengine.invertedindex.InvertedIndex;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+@RequiredArgsConstructor
+public class SearchResultCache {
+    private final InvertedIndex invertedIndex;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+    @Value("${search-settings.cache-size:1000}")
+    private int maxSize;
+    @Value("${search-settings.cache-ttl-seconds:300}")
+    private long ttlSeconds;
+    private long generation = -1;
+
+    public SearchingResponse get(Key key) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        synchronized (entries) {
+            invalidateIfStale(invertedIndex.getGeneration());
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+                entries.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.response;
+        }
+    }
+
+    public void put(Key key, long indexGeneration, SearchingResponse response) {
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            invalidateIfStale(invertedIndex.getGeneration());
+            if (indexGeneration == generation) {
+                entries.put(key, new Entry(response, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+            }
+        }
+    }
+
+    public SearchCacheStatistics getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long requests = hitCount + missCount;
+        return new SearchCacheStatistics(size, maxSize, hitCount, missCount, evictions.sum(),
+                requests == 0 ? 0 : (double) hitCount / requests);
+    }
+
+    private void invalidateIfStale(long currentGeneration) {
+        if (currentGeneration != generation) {
+            evictions.add(entries.size());
+            entries.clear();
+            generation = currentGeneration;
+        }
+    }
+
+    public record Key(List<String> lemmas, List<String> phrases, String site, int offset, int limit) {
+    }
+
+    private record Entry(SearchingResponse response, long expiresAt) {
+    }
+}
@@ -1,6 +1,8 @@
 package searchengine.services.searchingservice;
+import searchengine.dto.searching.SearchCacheStatistics;
 import searchengine.dto.searching.SearchingResponse;
 
 public interface SearchingService {
     SearchingResponse search(String query, String site, int limit, int offset);
+    SearchCacheStatistics getCacheStatistics();
 }
\ No newline at end of file
@@ -1,204 +1,259 @@
 package searchengine.services.searchingservice;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import searchengine.dto.searching.SearchCacheStatistics;
 import searchengine.dto.searching.SearchingData;
 import searchengine.dto.searching.SearchingResponse;
+import searchengine.invertedindex.InvertedIndex;
+import searchengine.invertedindex.Phrase;
+import searchengine.invertedindex.ScoredPage;
+import searchengine.invertedindex.StoredPage;
+import searchengine.invertedindex.TopPages;
 import searchengine.lemmafinder.LemmaFinder;
+import searchengine.lemmafinder.LemmaPositions;
 import searchengine.model.*;
-import searchengine.repositories.LemmaModelRepository;
+import searchengine.repositories.PageTextModelRepository;
 import searchengine.repositories.SiteModelRepository;
+import searchengine.repositories.projections.PageTextView;
+import searchengine.services.indexingservice.UrlNormalizer;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SearchingServiceImpl implements SearchingService {
-    private final LemmaModelRepository lemmaModelRepository;
+    private final PageTextModelRepository pageTextModelRepository;
     private final SiteModelRepository siteModelRepository;
+    private final InvertedIndex invertedIndex;
+    private final SearchResultCache searchResultCache;
+    private final SearchMetrics searchMetrics;
     private final LemmaFinder lemmaFinder = new LemmaFinder();
-    private static final int SNIPPET_LENGTH = 150;
-    private static final int CONTEXT_PADDING = 50;
+    private final SnippetGenerator snippetGenerator = new SnippetGenerator();
+    @Value("${search-settings.site-threads:4}")
+    private int siteThreads;
+    private ExecutorService siteSearchExecutor;
+
+    @PostConstruct
+    public void startSiteSearchExecutor() {
+        siteSearchExecutor = Executors.newFixedThreadPool(siteThreads);
+    }
+
+    @PreDestroy
+    public void stopSiteSearchExecutor() {
+        siteSearchExecutor.shutdown();
+    }
 
     @Override
     public SearchingResponse search(String query, String site, int limit, int offset) {
         SearchingResponse search = new SearchingResponse();
-        if (query == null) {
+        if (query == null || query.isBlank()) {
             search.setError("An empty search query was specified");
             search.setResult(false);
+            return search;
         }
-        if (siteModelRepository.findAll().stream()
-                .anyMatch(siteModel -> siteModel.getSiteStatus() == SiteStatus.INDEXING)) {
-            search.setError("Site haven't been indexed yet");
-            search.setResult(false);
+        Set<String> queryLemmas = searchMetrics.timePhase("lemmatize",
+                () -> lemmaFinder.collectLemmas(query).keySet());
+        List<Phrase> phrases = parsePhrases(query);
+        SearchResultCache.Key cacheKey = new SearchResultCache.Key(queryLemmas.stream().sorted().toList(),
+                phrases.stream().map(SearchingServiceImpl::describePhrase).toList(), site, offset, limit);
+        SearchingResponse cachedSearch = searchResultCache.get(cacheKey);
+        searchMetrics.recordRequest(cachedSearch != null);
+        if (cachedSearch != null) {
+            return cachedSearch;
         }
-        List<String> sortedLemmasList = findAndSortLemmasInDb(query);
-        if(sortedLemmasList != null) {
-            List<PageModel> matchedPages = getListOfMatchedPages(sortedLemmasList, site);
-            Set<SearchingData> searchingDataSet = getSearchingData(matchedPages, query, sortedLemmasList, limit);
-            search.setData(searchingDataSet.stream().limit(limit).toList());
-            search.setCount(searchingDataSet.size());
+        long indexGeneration = invertedIndex.getGeneration();
+        List<SiteModel> siteModels = getSitesToSearch(site);
+        Set<String> lemmas = searchMetrics.timePhase("lemma_lookup",
+                () -> findLemmasInIndex(queryLemmas, siteModels));
+        int from = Math.max(offset, 0);
+        int topCount = from + Math.max(limit, 0);
+        List<TopPages> siteMatches = searchMetrics.timePhase("intersection",
+                () -> getListOfMatchedPages(lemmas, phrases, siteModels, topCount));
+        int count = siteMatches.stream().mapToInt(TopPages::count).sum();
+        searchMetrics.recordResults(count);
+        if (count > 0) {
+            List<ScoredPage> topPages = searchMetrics.timePhase("ranking",
+                    () -> mergeTopPages(siteMatches, topCount));
+            float maxRelevance = (float) siteMatches.stream()
+                    .mapToDouble(TopPages::maxRelevance)
+                    .max()
+                    .orElse(1);
+            List<ScoredPage> resultPages = topPages.subList(Math.min(from, topPages.size()), topPages.size());
+            search.setData(searchMetrics.timePhase("snippets", () -> getSearchingData(resultPages,
+                    siteModels, QueryPlan.compile(query, queryLemmas), maxRelevance)));
+            search.setCount(count);
             search.setResult(true);
         } else {
             search.setError("No matches found");
             search.setResult(false);
         }
+        searchResultCache.put(cacheKey, indexGeneration, search);
         return search;
     }
 
-    private List<PageModel> getListOfMatchedPages(List<String> sortedLemmasList, String site) {
-        List<PageModel> matchedPages = new ArrayList<>();
+    @Override
+    public SearchCacheStatistics getCacheStatistics() {
+        return searchResultCache.getStatistics();
+    }
+
+    private List<SiteModel> getSitesToSearch(String site) {
         if (site == null) {
-            for (SiteModel siteFromDb : siteModelRepository.findAll()) {
-                List<PageModel> extraList = getPagesForLemma(sortedLemmasList.get(0), siteFromDb);
-                for (int i = 1; i < sortedLemmasList.size(); i++) {
-                    String lemma = sortedLemmasList.get(i);
-                    List<PageModel> pagesForLemma = getPagesForLemma(lemma, siteFromDb);
-                    extraList = extraList.stream()
-                            .filter(pagesForLemma::contains)
-                            .toList();
-                }
-                matchedPages.addAll(extraList);
+            return siteModelRepository.findServingSites();
+        }
+        return siteModelRepository.findServingSiteByUrl(UrlNormalizer.normalizeSiteUrl(site))
+                .map(List::of)
+                .orElse(List.of());
+    }
+
+    private List<Phrase> parsePhrases(String query) {
+        List<Phrase> phrases = new ArrayList<>();
+        int start = query.indexOf('"');
+        while (start != -1) {
+            int end = query.indexOf('"', start + 1);
+            if (end == -1) {
+                break;
             }
-        } else {
-            SiteModel siteFromDb = siteModelRepository.findByUrl(site + "/");
-            matchedPages = getPagesForLemma(sortedLemmasList.get(0), siteFromDb);
-            for (int i = 1; i < sortedLemmasList.size() && !matchedPages.isEmpty(); i++) {
-                String lemma = sortedLemmasList.get(i);
-                List<PageModel> pagesForLemma = getPagesForLemma(lemma, siteFromDb);
-                matchedPages = matchedPages.stream()
-                        .filter(pagesForLemma::contains)
-                        .toList();
+            Phrase phrase = toPhrase(query.substring(start + 1, end));
+            if (phrase != null) {
+                phrases.add(phrase);
             }
+            start = query.indexOf('"', end + 1);
         }
-        return matchedPages;
+        return phrases;
     }
 
-    private List<PageModel> getPagesForLemma(String lemma, SiteModel siteModel) {
-        return lemmaModelRepository.findBySiteAndLemma(siteModel, lemma).getIndexes().stream()
-                .map(IndexModel::getPage)
-                .collect(Collectors.toList());
+    private Phrase toPhrase(String text) {
+        Map<String, Integer> firstPositions = new HashMap<>();
+        lemmaFinder.collectLemmaPositions(text)
+                .forEach((lemma, positions) -> firstPositions.put(lemma, positions.toArray()[0]));
+        if (firstPositions.size() < 2) {
+            return null;
+        }
+        List<String> lemmas = firstPositions.keySet().stream()
+                .sorted(Comparator.comparingInt(firstPositions::get))
+                .toList();
+        int phraseStart = firstPositions.get(lemmas.get(0));
+        int[] offsets = lemmas.stream().mapToInt(lemma -> firstPositions.get(lemma) - phraseStart).toArray();
+        return new Phrase(lemmas, offsets);
     }
 
-    private List<String>findAndSortLemmasInDb(String query) {
-        Set<String> lemmasFromQuery = lemmaFinder.collectLemmas(query).keySet();
-        Map<String, Integer> lemmasMatchesWithLemmasInDb = lemmasFromQuery.stream()
-                .map(lemmaModelRepository::findByLemma)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toMap(LemmaModel::getLemma, LemmaModel::getFrequency));
-        return lemmasMatchesWithLemmasInDb.isEmpty() ? null :
-                lemmasMatchesWithLemmasInDb.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .toList();
+    private static String describePhrase(Phrase phrase) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < phrase.lemmas().size(); i++) {
+            description.append(phrase.lemmas().get(i)).append('@').append(phrase.offsets()[i]).append(' ');
+        }
+        return description.toString();
     }
 
-    private Float calculateAbsoluteRelevance(PageModel pageModel, List<String> lemmas) {
-        return pageModel.getIndexes().stream()
-                .filter(index -> lemmas.contains(index.getLemma().getLemma()))
-                .map(IndexModel::getRankScore).reduce(0f, Float::sum);
+    private Set<String> findLemmasInIndex(Set<String> queryLemmas, List<SiteModel> siteModels) {
+        return queryLemmas.stream()
+                .filter(lemma -> siteModels.stream()
+                        .anyMatch(siteModel -> invertedIndex.containsLemma(siteModel.getId(), lemma)))
+                .collect(Collectors.toSet());
     }
 
-    private TreeSet<SearchingData> getSearchingData(List<PageModel> matchedPages, String query, List<String> sortedLemmasList, int limit) {
-        TreeSet<SearchingData> dataSet = new TreeSet<>();
-        for (PageModel pageModel : matchedPages) {
-            SearchingData searchingData = new SearchingData();
-            searchingData.setSite(pageModel.getSite().getUrl().substring(0, pageModel.getSite().getUrl().length() - 1));
-            searchingData.setSiteName(pageModel.getSite().getName());
-            searchingData.setUrl(pageModel.getPath());
-            int startTitle = pageModel.getContent().indexOf("<title>") + 7;
-            int endTitle = pageModel.getContent().indexOf("</title>", startTitle);
-            String title = pageModel.getContent().substring(startTitle, endTitle);
-            searchingData.setTitle(title);
-            String snippet = generateSnippet(pageModel.getContent(), query);
-            searchingData.setSnippet(snippet);
-            float relevance = calculateAbsoluteRelevance(pageModel, sortedLemmasList);
-            searchingData.setRelevance(relevance);
-            dataSet.add(searchingData);
+    private List<TopPages> getListOfMatchedPages(Set<String> lemmas, List<Phrase> phrases,
+                                                    List<SiteModel> siteModels, int topCount) {
+        if (siteModels.size() == 1) {
+            return List.of(searchSite(siteModels.get(0), lemmas, phrases, topCount));
         }
-        float maxRelevance = dataSet.stream().map(SearchingData::getRelevance).max(Float::compareTo).orElse(0f);
-        dataSet.forEach(d -> d.setRelevance(maxRelevance / d.getRelevance()));
-        return dataSet;
+        List<CompletableFuture<TopPages>> siteSearches = siteModels.stream()
+                .map(siteModel -> CompletableFuture.supplyAsync(
+                        () -> searchSite(siteModel, lemmas, phrases, topCount), siteSearchExecutor))
+                .toList();
+        return siteSearches.stream()
+                .map(CompletableFuture::join)
+                .toList();
     }
 
-    private String generateSnippet(String content, String query) {
-        String text = Jsoup.parse(content).text();
-        List<Integer> matchPositions = findMatchPositions(text, query);
-        String snippet = matchPositions.isEmpty()
-                ? getFallbackSnippet(text)
-                : buildSnippetAroundMatches(text, matchPositions);
-
-        return highlightMatches(snippet, query);
+    private TopPages searchSite(SiteModel siteModel, Set<String> lemmas, List<Phrase> phrases, int topCount) {
+        return invertedIndex.search(siteModel.getId(), lemmas, phrases, topCount);
     }
 
-    private List<Integer> findMatchPositions(String text, String query) {
-        String regex = getRegexToMatchWords(query);
-        Matcher matcher = Pattern.compile(regex).matcher(text);
-        List<Integer> positions = new ArrayList<>();
-        while (matcher.find()) {
-            positions.add(matcher.start());
+    private List<ScoredPage> mergeTopPages(List<TopPages> siteMatches, int count) {
+        PriorityQueue<MergeCursor> cursors = new PriorityQueue<>(
+                Comparator.comparing(MergeCursor::head, ScoredPage.BY_RELEVANCE));
+        siteMatches.stream()
+                .filter(matches -> !matches.pages().isEmpty())
+                .forEach(matches -> cursors.add(new MergeCursor(matches.pages())));
+        List<ScoredPage> topPages = new ArrayList<>(count);
+        while (topPages.size() < count && !cursors.isEmpty()) {
+            MergeCursor cursor = cursors.poll();
+            topPages.add(cursor.head());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
         }
-        return positions;
+        return topPages;
     }
 
-    private String buildSnippetAroundMatches(String text, List<Integer> positions) {
-        int start = findOptimalSnippetStart(positions);
-        int end = Math.min(start + SNIPPET_LENGTH, text.length());
-        String snippet = text.substring(start, end);
-        if (start > 0) {
-            snippet = "..." + snippet;
+    private List<SearchingData> getSearchingData(List<ScoredPage> resultPages, List<SiteModel> siteModels,
+                                                 QueryPlan queryPlan, float maxRelevance) {
+        Map<Integer, SiteModel> sitesById = siteModels.stream()
+                .collect(Collectors.toMap(SiteModel::getId, siteModel -> siteModel));
+        Map<Integer, StoredPage> storedPages = getStoredPages(resultPages);
+        List<SearchingData> data = new ArrayList<>(resultPages.size());
+        for (ScoredPage scoredPage : resultPages) {
+            StoredPage storedPage = storedPages.get(scoredPage.pageId());
+            if (storedPage == null) {
+                continue;
+            }
+            SiteModel siteModel = sitesById.get(scoredPage.siteId());
+            SearchingData searchingData = new SearchingData();
+            searchingData.setSite(siteModel.getUrl().substring(0, siteModel.getUrl().length() - 1));
+            searchingData.setSiteName(siteModel.getName());
+            searchingData.setUrl(storedPage.path());
+            searchingData.setTitle(storedPage.title());
+            searchingData.setSnippet(snippetGenerator.generateSnippet(storedPage.text(), queryPlan,
+                    scoredPage.anchorPosition()));
+            searchingData.setRelevance(scoredPage.relevance() / maxRelevance);
+            data.add(searchingData);
         }
-        return end < text.length() ? snippet + "..." : snippet;
+        return data;
     }
 
-    private int findOptimalSnippetStart(List<Integer> positions) {
-        Collections.sort(positions);
-        int bestStart = 0;
-        int maxDensity = 0;
-        for (int i = 0; i < positions.size(); i++) {
-            int windowEnd = positions.get(i) + SNIPPET_LENGTH;
-            int matches = 1;
-            for (int j = i + 1; j < positions.size() && positions.get(j) <= windowEnd; j++) {
-                matches++;
+    private Map<Integer, StoredPage> getStoredPages(List<ScoredPage> resultPages) {
+        Map<Integer, StoredPage> storedPages = new HashMap<>();
+        Map<Integer, Integer> pagesToLoad = new HashMap<>();
+        for (ScoredPage scoredPage : resultPages) {
+            StoredPage storedPage = invertedIndex.getPage(scoredPage.siteId(), scoredPage.pageId());
+            if (storedPage != null) {
+                storedPages.put(scoredPage.pageId(), storedPage);
+            } else {
+                pagesToLoad.put(scoredPage.pageId(), scoredPage.siteId());
             }
-            if (matches > maxDensity) {
-                maxDensity = matches;
-                bestStart = Math.max(0, positions.get(i) - CONTEXT_PADDING);
+        }
+        if (!pagesToLoad.isEmpty()) {
+            for (PageTextView pageText : pageTextModelRepository.findTextsByPageIds(pagesToLoad.keySet())) {
+                storedPages.put(pageText.getPageId(), new StoredPage(pagesToLoad.get(pageText.getPageId()),
+                        pageText.getPageId(), pageText.getPath(), pageText.getTitle(), pageText.getText()));
             }
         }
-        return bestStart;
+        return storedPages;
     }
 
-    private String highlightMatches(String snippet, String query) {
-        String regex = getRegexToMatchWords(query);
-        Matcher matcher = Pattern.compile(regex).matcher(snippet);
-        StringBuilder stringBuilder = new StringBuilder();
-        while (matcher.find()) {
-            matcher.appendReplacement(stringBuilder, "<b>" + matcher.group() + "</b>");
+    private static class MergeCursor {
+        private final List<ScoredPage> pages;
+        private int position;
+
+        private MergeCursor(List<ScoredPage> pages) {
+            this.pages = pages;
         }
-        matcher.appendTail(stringBuilder);
-        return stringBuilder.toString();
-    }
 
-    private String getFallbackSnippet(String text) {
-        return text.substring(0, Math.min(SNIPPET_LENGTH, text.length())) +
-                (text.length() > SNIPPET_LENGTH ? "..." : "");
-    }
+        private ScoredPage head() {
+            return pages.get(position);
+        }
 
-    private String getRegexToMatchWords(String query) {
-        Set<String> lemmas = lemmaFinder.collectLemmas(query).keySet();
-        Set<String> queryWords = new HashSet<>(Stream.of(query.split("\\s+")).filter(word -> word.length() > 2).toList());
-        Set<String> wordsAndLemmas = new HashSet<>();
-        wordsAndLemmas.addAll(queryWords);
-        wordsAndLemmas.addAll(lemmas);
-        return wordsAndLemmas.stream()
-                .map(Pattern::quote)
-                .map(word -> "(?iu)\\b" + word + "\\w*")
-                .collect(Collectors.joining("|"));
+        private boolean advance() {
+            return ++position < pages.size();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package searchengine.services.searchingservice;
+import searchengine.lemmafinder.LemmaFinder;
+import java.util.List;
+
+public class SnippetGenerator {
+    private static final int SNIPPET_LENGTH = 150;
+    private static final int CONTEXT_PADDING = 50;
+
+    public String generateSnippet(String text, QueryPlan queryPlan) {
+        return generateSnippet(text, queryPlan, -1);
+    }
+
+    public String generateSnippet(String text, QueryPlan queryPlan, int anchorPosition) {
+        int anchorOffset = anchorPosition >= 0 ? LemmaFinder.findTokenOffset(text, anchorPosition) : -1;
+        if (anchorOffset >= 0) {
+            int start = Math.max(0, anchorOffset - CONTEXT_PADDING);
+            int end = Math.min(start + SNIPPET_LENGTH, text.length());
+            return buildSnippet(text, start, end, queryPlan.findMatches(text, start, end));
+        }
+        List<QueryPlan.Match> matches = queryPlan.findMatches(text);
+        if (matches.isEmpty()) {
+            return getFallbackSnippet(text);
+        }
+        int start = findOptimalSnippetStart(matches);
+        int end = Math.min(start + SNIPPET_LENGTH, text.length());
+        return buildSnippet(text, start, end, matches);
+    }
+
+    private String buildSnippet(String text, int start, int end, List<QueryPlan.Match> matches) {
+        StringBuilder snippet = new StringBuilder(end - start + 64);
+        if (start > 0) {
+            snippet.append("...");
+        }
+        appendHighlighted(snippet, text, start, end, matches);
+        if (end < text.length()) {
+            snippet.append("...");
+        }
+        return snippet.toString();
+    }
+
+    private int findOptimalSnippetStart(List<QueryPlan.Match> matches) {
+        int bestStart = 0;
+        int maxDensity = 0;
+        int windowEndIndex = 0;
+        for (int i = 0; i < matches.size(); i++) {
+            int windowEnd = matches.get(i).start() + SNIPPET_LENGTH;
+            windowEndIndex = Math.max(windowEndIndex, i + 1);
+            while (windowEndIndex < matches.size() && matches.get(windowEndIndex).start() <= windowEnd) {
+                windowEndIndex++;
+            }
+            int density = windowEndIndex - i;
+            if (density > maxDensity) {
+                maxDensity = density;
+                bestStart = Math.max(0, matches.get(i).start() - CONTEXT_PADDING);
+            }
+        }
+        return bestStart;
+    }
+
+    String highlightMatches(String snippet, QueryPlan queryPlan) {
+        StringBuilder highlighted = new StringBuilder(snippet.length() + 64);
+        appendHighlighted(highlighted, snippet, 0, snippet.length(), queryPlan.findMatches(snippet));
+        return highlighted.toString();
+    }
+
+    private void appendHighlighted(StringBuilder snippet, String text, int start, int end,
+                                   List<QueryPlan.Match> matches) {
+        int position = start;
+        for (QueryPlan.Match match : matches) {
+            if (match.end() <= start) {
+                continue;
+            }
+            if (match.start() >= end) {
+                break;
+            }
+            int matchStart = Math.max(match.start(), start);
+            int matchEnd = Math.min(match.end(), end);
+            snippet.append(text, position, matchStart)
+                    .append("<b>").append(text, matchStart, matchEnd).append("</b>");
+            position = matchEnd;
+        }
+        snippet.append(text, position, end);
+    }
+
+    private String getFallbackSnippet(String text) {
+        return text.substring(0, Math.min(SNIPPET_LENGTH, text.length())) +
+                (text.length() > SNIPPET_LENGTH ? "..." : "");
+    }
+}
@@ -0,0 +1,81 @@
+package searchengine.services.statisticsservice;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import searchengine.repositories.LemmaModelRepository;
+import searchengine.repositories.PageModelRepository;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SiteStatisticsCounters {
+    private final PageModelRepository pageModelRepository;
+    private final LemmaModelRepository lemmaModelRepository;
+    private final Map<Integer, Counters> counters = new ConcurrentHashMap<>();
+    @Value("${statistics-settings.live-counters:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void synchronize() {
+        if (!enabled) {
+            return;
+        }
+        counters.clear();
+        pageModelRepository.countPagesBySite()
+                .forEach(count -> forSite(count.getSiteId()).pages.add(count.getCount()));
+        lemmaModelRepository.countLemmasBySite()
+                .forEach(count -> forSite(count.getSiteId()).lemmas.add(count.getCount()));
+        log.debug("Statistics counters have been synchronized for {} sites", counters.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void pageAdded(int siteId) {
+        if (enabled) {
+            forSite(siteId).pages.increment();
+        }
+    }
+
+    public void pageRemoved(int siteId) {
+        if (enabled) {
+            forSite(siteId).pages.decrement();
+        }
+    }
+
+    public void lemmasAdded(int siteId, int count) {
+        if (enabled && count > 0) {
+            forSite(siteId).lemmas.add(count);
+        }
+    }
+
+    public void remove(int siteId) {
+        counters.remove(siteId);
+    }
+
+    public int getPages(int siteId) {
+        Counters siteCounters = counters.get(siteId);
+        return siteCounters == null ? 0 : siteCounters.pages.intValue();
+    }
+
+    public int getLemmas(int siteId) {
+        Counters siteCounters = counters.get(siteId);
+        return siteCounters == null ? 0 : siteCounters.lemmas.intValue();
+    }
+
+    private Counters forSite(int siteId) {
+        return counters.computeIfAbsent(siteId, key -> new Counters());
+    }
+
+    private static class Counters {
+        private final LongAdder pages = new LongAdder();
+        private final LongAdder lemmas = new LongAdder();
+    }
+}
@@ -7,12 +7,17 @@ import searchengine.dto.statistics.DetailedStatisticsItem;
 import searchengine.dto.statistics.StatisticsData;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.dto.statistics.TotalStatistics;
+import searchengine.model.SiteModel;
 import searchengine.repositories.LemmaModelRepository;
 import searchengine.repositories.PageModelRepository;
 import searchengine.repositories.SiteModelRepository;
+import searchengine.repositories.projections.SiteCountView;
+import searchengine.services.indexingservice.UrlNormalizer;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,20 +26,36 @@ public class StatisticsServiceImpl implements StatisticsService {
     private final PageModelRepository pageModelRepository;
     private final LemmaModelRepository lemmaModelRepository;
     private final SiteModelRepository siteModelRepository;
+    private final SiteStatisticsCounters siteStatisticsCounters;
 
     @Override
     public StatisticsResponse getStatistics() {
+        Map<String, SiteModel> siteModels = siteModelRepository.findAll().stream()
+                .collect(Collectors.toMap(SiteModel::getUrl, Function.identity(),
+                        BinaryOperator.maxBy(Comparator.comparing(SiteModel::getId))));
+        Map<Integer, Integer> pageCounts;
+        Map<Integer, Integer> lemmaCounts;
+        if (siteStatisticsCounters.isEnabled()) {
+            pageCounts = new HashMap<>();
+            lemmaCounts = new HashMap<>();
+            siteModels.values().forEach(siteModel -> {
+                pageCounts.put(siteModel.getId(), siteStatisticsCounters.getPages(siteModel.getId()));
+                lemmaCounts.put(siteModel.getId(), siteStatisticsCounters.getLemmas(siteModel.getId()));
+            });
+        } else {
+            pageCounts = toCountsBySite(pageModelRepository.countPagesBySite());
+            lemmaCounts = toCountsBySite(lemmaModelRepository.countLemmasBySite());
+        }
+
+        List<DetailedStatisticsItem> detailed = new ArrayList<>();
+        for (Site site : sites.getSites()) {
+            detailed.add(setStatisticToSite(site, siteModels.get(UrlNormalizer.normalizeSiteUrl(site.getUrl())), pageCounts, lemmaCounts));
+        }
         TotalStatistics total = new TotalStatistics();
         total.setSites(sites.getSites().size());
-        total.setPages(pageModelRepository.findAll().size());
-        total.setLemmas(lemmaModelRepository.findAll().size());
+        total.setPages(detailed.stream().mapToInt(DetailedStatisticsItem::getPages).sum());
+        total.setLemmas(detailed.stream().mapToInt(DetailedStatisticsItem::getLemmas).sum());
         total.setIndexing(true);
-        List<DetailedStatisticsItem> detailed = new ArrayList<>();
-        List<Site> sitesList = sites.getSites();
-        for (Site site : sitesList) {
-            DetailedStatisticsItem item = setStatisticToSite(site);
-            detailed.add(item);
-        }
         StatisticsResponse response = new StatisticsResponse();
         StatisticsData data = new StatisticsData();
         data.setTotal(total);
@@ -44,43 +65,18 @@ public class StatisticsServiceImpl implements StatisticsService {
         return response;
     }
 
-    private DetailedStatisticsItem setStatisticToSite(Site site) {
+    private DetailedStatisticsItem setStatisticToSite(Site site, SiteModel siteModel,
+                                                      Map<Integer, Integer> pageCounts,
+                                                      Map<Integer, Integer> lemmaCounts) {
         DetailedStatisticsItem item = new DetailedStatisticsItem();
         item.setName(site.getName());
         item.setUrl(site.getUrl());
-        if (!siteModelRepository.findAll().isEmpty()) {
-            item.setPages((int) pageModelRepository.findAll()
-                    .stream()
-                    .filter(p -> p.getSite().getUrl().startsWith(site.getUrl()))
-                    .count());
-            item.setLemmas((int) lemmaModelRepository.findAll()
-                    .stream()
-                    .filter(l -> l.getSite().getUrl().startsWith(site.getUrl()))
-                    .count());
-            item.setStatus(String.valueOf(siteModelRepository.findAll()
-                    .stream()
-                    .filter(s -> s.getUrl().startsWith(site.getUrl()))
-                    .findFirst()
-                    .orElse(null)
-                    .getSiteStatus()));
-            item.setError(siteModelRepository.findAll()
-                    .stream()
-                    .filter(s -> s.getUrl().startsWith(site.getUrl()))
-                    .findFirst()
-                    .orElse(null)
-                    .getLastError() != null ?
-                    siteModelRepository.findAll()
-                            .stream()
-                            .filter(s -> s.getUrl().startsWith(site.getUrl()))
-                            .findFirst().orElse(null)
-                            .getLastError()
-                    : "");
-            item.setStatusTime(siteModelRepository.findAll()
-                    .stream()
-                    .filter(s -> s.getUrl().startsWith(site.getUrl()))
-                    .findFirst()
-                    .orElse(null)
-                    .getStatusTime());
+        if (siteModel != null) {
+            item.setPages(pageCounts.getOrDefault(siteModel.getId(), 0));
+            item.setLemmas(lemmaCounts.getOrDefault(siteModel.getId(), 0));
+            item.setStatus(String.valueOf(siteModel.getSiteStatus()));
+            item.setError(siteModel.getLastError() != null ? siteModel.getLastError() : "");
+            item.setStatusTime(siteModel.getStatusTime());
         } else {
             item.setPages(0);
             item.setLemmas(0);
@@ -90,4 +86,9 @@ public class StatisticsServiceImpl implements StatisticsService {
         }
         return item;
     }
-}
\ No newline at end of file
+
+    private Map<Integer, Integer> toCountsBySite(List<SiteCountView> counts) {
+        return counts.stream()
+                .collect(Collectors.toMap(SiteCountView::getSiteId, count -> count.getCount().intValue()));
+    }
+}
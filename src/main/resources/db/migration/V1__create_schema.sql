@@ -0,0 +1,60 @@
+CREATE TABLE sites (
+    id          INT                                    NOT NULL AUTO_INCREMENT,
+    status      ENUM ('INDEXED', 'FAILED', 'INDEXING') NOT NULL,
+    status_time DATETIME                               NOT NULL,
+    last_error  TEXT,
+    url         VARCHAR(255),
+    name        VARCHAR(255),
+    PRIMARY KEY (id),
+    INDEX idx_sites_url_status (url, status)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE pages (
+    id            INT                              NOT NULL AUTO_INCREMENT,
+    site_id       INT                              NOT NULL,
+    path          VARCHAR(700) COLLATE utf8mb4_bin NOT NULL,
+    code          INT                              NOT NULL,
+    content       MEDIUMBLOB                       NOT NULL,
+    etag          VARCHAR(255),
+    last_modified VARCHAR(64),
+    content_hash  CHAR(64),
+    token_count   INT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_pages_site_path UNIQUE (site_id, path),
+    CONSTRAINT fk_pages_site FOREIGN KEY (site_id) REFERENCES sites (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE page_texts (
+    page_id INT        NOT NULL,
+    title   TEXT       NOT NULL,
+    text    MEDIUMTEXT NOT NULL,
+    PRIMARY KEY (page_id),
+    CONSTRAINT fk_page_texts_page FOREIGN KEY (page_id) REFERENCES pages (id) ON DELETE CASCADE
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE lemmas (
+    id        INT                              NOT NULL AUTO_INCREMENT,
+    site_id   INT                              NOT NULL,
+    lemma     VARCHAR(255) COLLATE utf8mb4_bin NOT NULL,
+    frequency INT                              NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_lemmas_site_lemma UNIQUE (site_id, lemma),
+    CONSTRAINT fk_lemmas_site FOREIGN KEY (site_id) REFERENCES sites (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE indexes (
+    id         INT   NOT NULL AUTO_INCREMENT,
+    page_id    INT   NOT NULL,
+    lemma_id   INT   NOT NULL,
+    rank_score FLOAT NOT NULL,
+    positions  MEDIUMBLOB,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_indexes_lemma_page UNIQUE (lemma_id, page_id),
+    CONSTRAINT fk_indexes_page FOREIGN KEY (page_id) REFERENCES pages (id),
+    CONSTRAINT fk_indexes_lemma FOREIGN KEY (lemma_id) REFERENCES lemmas (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4;
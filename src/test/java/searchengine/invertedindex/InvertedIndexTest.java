@@ -0,0 +1,111 @@
+package searchengine.invertedindex;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+    private static final int SITE_ID = 1;
+    private static final int ALL_PAGES = Integer.MAX_VALUE;
+
+    @Test
+    void intersectMatchesSetIntersectionAroundBlockBoundaries() {
+        int[][] sizes = {{1, 1}, {1, 300}, {127, 128}, {128, 129}, {129, 1000}, {256, 257, 513}, {1000, 1000}};
+        for (int[] listSizes : sizes) {
+            Random random = new Random(Arrays.hashCode(listSizes));
+            List<int[]> pageIds = new ArrayList<>();
+            List<PostingList> postingLists = new ArrayList<>();
+            for (int size : listSizes) {
+                int[] ids = randomPageIds(size, random);
+                pageIds.add(ids);
+                postingLists.add(new PostingList(PostingList.encode(ids, scores(ids), size)));
+            }
+            List<ScoredPage> scoredPages = InvertedIndex.intersect(SITE_ID, postingLists, ALL_PAGES).pages();
+            assertEquals(expectedIntersection(pageIds), pageIds(scoredPages), Arrays.toString(listSizes));
+            for (ScoredPage scoredPage : scoredPages) {
+                assertEquals(SITE_ID, scoredPage.siteId());
+                assertEquals(listSizes.length * scoredPage.pageId() / 10f, scoredPage.relevance(), 1e-3);
+            }
+        }
+    }
+
+    @Test
+    void intersectWithEmptyListReturnsNothing() {
+        int[] ids = {1, 2, 3};
+        List<PostingList> postingLists = List.of(
+                new PostingList(PostingList.encode(new int[0], new float[0], 0)),
+                new PostingList(PostingList.encode(ids, scores(ids), ids.length)));
+        assertEquals(0, InvertedIndex.intersect(SITE_ID, postingLists, ALL_PAGES).count());
+        assertEquals(0, InvertedIndex.intersect(SITE_ID,
+                List.of(postingLists.get(1), postingLists.get(0)), ALL_PAGES).count());
+    }
+
+    @Test
+    void intersectOfSingleListReturnsAllPages() {
+        int[] ids = randomPageIds(200, new Random(3));
+        List<ScoredPage> scoredPages = InvertedIndex.intersect(SITE_ID,
+                List.of(new PostingList(PostingList.encode(ids, scores(ids), ids.length))), ALL_PAGES).pages();
+        assertEquals(Arrays.stream(ids).boxed().toList(), pageIds(scoredPages));
+    }
+
+    @Test
+    void intersectOfDisjointSingleEntryListsIsEmpty() {
+        List<PostingList> postingLists = List.of(
+                new PostingList(PostingList.encode(new int[]{5}, new float[]{1}, 1)),
+                new PostingList(PostingList.encode(new int[]{6}, new float[]{1}, 1)));
+        assertTrue(InvertedIndex.intersect(SITE_ID, postingLists, ALL_PAGES).pages().isEmpty());
+    }
+
+    @Test
+    void intersectKeepsOnlyTopPagesButCountsAllMatches() {
+        Random random = new Random(11);
+        int[] first = randomPageIds(600, random);
+        int[] second = randomPageIds(900, random);
+        float[] firstScores = new float[first.length];
+        for (int i = 0; i < first.length; i++) {
+            firstScores[i] = random.nextInt(50);
+        }
+        List<PostingList> postingLists = List.of(
+                new PostingList(PostingList.encode(first, firstScores, first.length)),
+                new PostingList(PostingList.encode(second, new float[second.length], second.length)));
+        List<ScoredPage> allPages = InvertedIndex.intersect(SITE_ID, postingLists, ALL_PAGES).pages();
+        for (int topCount : new int[]{0, 1, 10, allPages.size(), allPages.size() + 5}) {
+            TopPages topPages = InvertedIndex.intersect(SITE_ID, postingLists, topCount);
+            assertEquals(allPages.size(), topPages.count());
+            assertEquals(allPages.get(0).relevance(), topPages.maxRelevance());
+            assertEquals(allPages.subList(0, Math.min(topCount, allPages.size())), topPages.pages());
+        }
+    }
+
+    private static List<Integer> pageIds(List<ScoredPage> scoredPages) {
+        return scoredPages.stream().map(ScoredPage::pageId).sorted().toList();
+    }
+
+    private static int[] randomPageIds(int size, Random random) {
+        TreeSet<Integer> pageIds = new TreeSet<>();
+        while (pageIds.size() < size) {
+            pageIds.add(1 + random.nextInt(Math.max(4 * size, 10)));
+        }
+        return pageIds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static float[] scores(int[] pageIds) {
+        float[] scores = new float[pageIds.length];
+        for (int i = 0; i < pageIds.length; i++) {
+            scores[i] = pageIds[i] / 10f;
+        }
+        return scores;
+    }
+
+    private static List<Integer> expectedIntersection(List<int[]> pageIds) {
+        Set<Integer> intersection = new TreeSet<>();
+        Arrays.stream(pageIds.get(0)).forEach(intersection::add);
+        for (int[] ids : pageIds.subList(1, pageIds.size())) {
+            Set<Integer> listIds = new HashSet<>();
+            Arrays.stream(ids).forEach(listIds::add);
+            intersection.retainAll(listIds);
+        }
+        return new ArrayList<>(intersection);
+    }
+}
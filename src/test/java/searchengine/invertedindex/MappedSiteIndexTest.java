@@ -0,0 +1,89 @@
+package searchengine.invertedindex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedSiteIndexTest {
+    private static final int SITE_ID = 3;
+    private static final int ALL_PAGES = Integer.MAX_VALUE;
+    @TempDir
+    Path temporaryDirectory;
+
+    @Test
+    void writtenSegmentIsServedFromTheMappedFiles() throws IOException {
+        Path directory = temporaryDirectory.resolve("site-" + SITE_ID);
+        writeSegment(directory, "Кот на окне");
+        MappedSiteIndex siteIndex = MappedSiteIndex.open(directory);
+
+        assertEquals(3, siteIndex.getPageCount());
+        assertNull(siteIndex.getPostings("собака"));
+        PostingList.Cursor cursor = siteIndex.getPostings("окно").cursor();
+        assertEquals(2, cursor.next());
+        assertArrayEquals(new int[]{2}, cursor.positions());
+        assertEquals(PostingList.NO_MORE_PAGES, cursor.next());
+
+        List<PostingList> postingLists = List.of(siteIndex.getPostings("кот"), siteIndex.getPostings("окно"));
+        List<ScoredPage> pages = InvertedIndex.intersect(SITE_ID, postingLists, ALL_PAGES).pages();
+        assertEquals(List.of(new ScoredPage(SITE_ID, 2, 3, -1)), pages);
+
+        assertEquals(new StoredPage(SITE_ID, 2, "/cat", "Кот на окне", "Кот сидел на окне"), siteIndex.getPage(2));
+        assertNull(siteIndex.getPage(4));
+    }
+
+    @Test
+    void commitReplacesThePreviousSegment() throws IOException {
+        Path directory = temporaryDirectory.resolve("site-" + SITE_ID);
+        writeSegment(directory, "Старый заголовок");
+        writeSegment(directory, "Новый заголовок");
+        assertEquals("Новый заголовок", MappedSiteIndex.open(directory).getPage(2).title());
+        assertFalse(Files.exists(directory.resolveSibling(directory.getFileName() + ".tmp")));
+        assertFalse(Files.exists(directory.resolveSibling(directory.getFileName() + ".old")));
+    }
+
+    @Test
+    void releasedIndexCannotBeRetainedAgain() throws IOException {
+        Path directory = temporaryDirectory.resolve("site-" + SITE_ID);
+        writeSegment(directory, "Кот на окне");
+        MappedSiteIndex siteIndex = MappedSiteIndex.open(directory);
+        assertTrue(siteIndex.retain());
+        siteIndex.release();
+        assertEquals(2, siteIndex.getPage(2).pageId());
+        siteIndex.release();
+        assertFalse(siteIndex.retain());
+    }
+
+    @Test
+    void pagesOutOfOrderAreRejected() throws IOException {
+        try (SegmentWriter segmentWriter = SegmentWriter.create(temporaryDirectory.resolve("unordered"), SITE_ID)) {
+            segmentWriter.addPage(new StoredPage(SITE_ID, 5, "/b", "", ""));
+            assertThrows(IllegalArgumentException.class,
+                    () -> segmentWriter.addPage(new StoredPage(SITE_ID, 4, "/a", "", "")));
+        }
+    }
+
+    private static void writeSegment(Path directory, String title) throws IOException {
+        int[] catPages = {1, 2, 3};
+        int[] windowPages = {2};
+        try (SegmentWriter segmentWriter = SegmentWriter.create(directory, SITE_ID)) {
+            segmentWriter.writePostings(Map.of(
+                    "кот", new PostingList(PostingList.encode(catPages, new float[]{1, 1, 1}, catPages.length)),
+                    "окно", new PostingList(PostingList.encode(windowPages, new float[]{2},
+                            new byte[][]{PositionCodec.encode(new int[]{2})}, windowPages.length))));
+            segmentWriter.addPage(new StoredPage(SITE_ID, 1, "/", "Главная", "Кот"));
+            segmentWriter.addPage(new StoredPage(SITE_ID, 2, "/cat", title, "Кот сидел на окне"));
+            segmentWriter.addPage(new StoredPage(SITE_ID, 3, "/dog", "Собака", "Кот и собака"));
+            segmentWriter.commit();
+        }
+    }
+}
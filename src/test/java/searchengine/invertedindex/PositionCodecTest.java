@@ -0,0 +1,55 @@
+package searchengine.invertedindex;
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PositionCodecTest {
+
+    @Test
+    void decodeRestoresEncodedPositions() {
+        int[][] cases = {{}, {0}, {5}, {0, 1, 2, 3}, {127, 128}, {1, 200, 16_384, 70_000, 3_000_000, Integer.MAX_VALUE}};
+        for (int[] positions : cases) {
+            assertArrayEquals(positions, PositionCodec.decode(PositionCodec.encode(positions)));
+        }
+    }
+
+    @Test
+    void decodeRestoresRandomPositions() {
+        Random random = new Random(17);
+        for (int size = 1; size <= 1000; size *= 10) {
+            int[] positions = new int[size];
+            int position = random.nextInt(10);
+            for (int i = 0; i < size; i++) {
+                position += random.nextInt(i % 10 == 0 ? 50_000 : 30);
+                positions[i] = position;
+            }
+            assertArrayEquals(positions, PositionCodec.decode(PositionCodec.encode(positions)), "size " + size);
+        }
+    }
+
+    @Test
+    void deltasUseOneByteForCloseWords() {
+        assertEquals(4, PositionCodec.encode(new int[]{10, 11, 12, 139}).length);
+        assertEquals(5, PositionCodec.encode(new int[]{10, 11, 12, 140}).length);
+    }
+
+    @Test
+    void decodeOfNullIsEmpty() {
+        assertEquals(0, PositionCodec.decode(null).length);
+    }
+
+    @Test
+    void decodeFromBufferRangeAndDecodeFirst() {
+        byte[] first = PositionCodec.encode(new int[]{300, 301});
+        byte[] second = PositionCodec.encode(new int[]{7, 20_000});
+        ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length).put(first).put(second);
+        assertArrayEquals(new int[]{300, 301}, PositionCodec.decode(buffer, 0, first.length));
+        assertArrayEquals(new int[]{7, 20_000}, PositionCodec.decode(buffer, first.length, buffer.capacity()));
+        assertEquals(0, PositionCodec.decode(buffer, first.length, first.length).length);
+        assertEquals(300, PositionCodec.decodeFirst(buffer, 0));
+        assertEquals(7, PositionCodec.decodeFirst(buffer, first.length));
+    }
+}
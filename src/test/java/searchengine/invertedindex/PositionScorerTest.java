@@ -0,0 +1,147 @@
+package searchengine.invertedindex;
+import org.junit.jupiter.api.Test;
+import searchengine.lemmafinder.LemmaFinder;
+import searchengine.lemmafinder.LemmaPositions;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionScorerTest {
+    private static final int SITE_ID = 1;
+    private static final int ALL_PAGES = Integer.MAX_VALUE;
+    private static final List<String> LEMMAS = List.of("кот", "окно");
+    // "кот на окне": the stop word is not indexed but still takes a position
+    private static final Phrase CAT_ON_WINDOW = new Phrase(LEMMAS, new int[]{0, 2});
+
+    @Test
+    void findPhraseCountsStopWordsInsideThePhrase() {
+        int[][] positions = {{0, 7}, {2, 12}};
+        assertEquals(0, PositionScorer.findPhrase(positions, new int[]{0, 1}, new int[]{0, 2}));
+        assertEquals(-1, PositionScorer.findPhrase(positions, new int[]{0, 1}, new int[]{0, 1}));
+        assertEquals(10, PositionScorer.findPhrase(new int[][]{{2, 12}, {5, 10}}, new int[]{1, 0}, new int[]{3, 5}));
+    }
+
+    @Test
+    void intersectKeepsOnlyPagesContainingThePhrase() {
+        List<PostingList> postingLists = List.of(
+                postingList(new int[]{1, 2, 3}, new int[][]{{0}, {4}, {10, 20}}),
+                postingList(new int[]{1, 2, 3}, new int[][]{{2}, {5}, {22}}));
+        PositionScorer positionScorer = new PositionScorer(LEMMAS, List.of(CAT_ON_WINDOW), 0);
+        assertTrue(positionScorer.isNeeded());
+        TopPages topPages = InvertedIndex.intersect(SITE_ID, postingLists, positionScorer, ALL_PAGES);
+        assertEquals(2, topPages.count());
+        assertEquals(List.of(new ScoredPage(SITE_ID, 1, 2, 0), new ScoredPage(SITE_ID, 3, 2, 20)),
+                topPages.pages());
+    }
+
+    @Test
+    void pagesWithoutPositionsDegradeToPlainAnd() {
+        int[] pageIds = {1, 2, 3};
+        List<PostingList> withoutPositions = List.of(
+                new PostingList(PostingList.encode(pageIds, new float[]{1, 1, 1}, pageIds.length)),
+                new PostingList(PostingList.encode(pageIds, new float[]{1, 2, 3}, pageIds.length)));
+        PositionScorer positionScorer = new PositionScorer(LEMMAS, List.of(CAT_ON_WINDOW), 0.5f);
+        assertEquals(InvertedIndex.intersect(SITE_ID, withoutPositions, ALL_PAGES),
+                InvertedIndex.intersect(SITE_ID, withoutPositions, positionScorer, ALL_PAGES));
+
+        List<PostingList> partlyRecorded = List.of(
+                postingList(new int[]{1, 2}, new int[][]{{0}, {0}}),
+                new PostingList(PostingList.encode(new int[]{1, 2}, new float[]{1, 1},
+                        new byte[][]{PositionCodec.encode(new int[]{2}), null}, 2)));
+        List<ScoredPage> pages = InvertedIndex.intersect(SITE_ID, partlyRecorded, positionScorer, ALL_PAGES).pages();
+        assertEquals(List.of(new ScoredPage(SITE_ID, 1, 2.5f, 0), new ScoredPage(SITE_ID, 2, 2, -1)), pages);
+    }
+
+    @Test
+    void proximityBoostShrinksWithWindowSpan() {
+        PositionScorer positionScorer = new PositionScorer(LEMMAS, List.of(), 0.5f);
+        assertEquals(new PositionScorer.Match(1.5f, 3), positionScorer.match(cursors(new int[]{3, 40}, new int[]{4})));
+        assertEquals(new PositionScorer.Match(1.125f, 6), positionScorer.match(cursors(new int[]{10}, new int[]{6})));
+        assertFalse(new PositionScorer(List.of("кот"), List.of(), 0.5f).isNeeded());
+    }
+
+    @Test
+    void findMinimumWindowReturnsStartAndSpan() {
+        assertArrayEquals(new int[]{18, 2}, PositionScorer.findMinimumWindow(new int[][]{{1, 10, 20}, {5, 19}, {18, 30}}));
+        assertArrayEquals(new int[]{4, 0}, PositionScorer.findMinimumWindow(new int[][]{{4, 9}}));
+        assertArrayEquals(new int[]{7, 0}, PositionScorer.findMinimumWindow(new int[][]{{7}, {7}}));
+    }
+
+    @Test
+    void findMinimumWindowMatchesBruteForce() {
+        Random random = new Random(23);
+        for (int attempt = 0; attempt < 200; attempt++) {
+            int[][] positions = new int[2 + random.nextInt(3)][];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = PostingListTest.positions(1 + random.nextInt(8), random);
+            }
+            int[] window = PositionScorer.findMinimumWindow(positions);
+            assertEquals(bruteForceSpan(positions), window[1]);
+            for (int[] lemmaPositions : positions) {
+                boolean inWindow = false;
+                for (int position : lemmaPositions) {
+                    inWindow |= position >= window[0] && position <= window[0] + window[1];
+                }
+                assertTrue(inWindow, "window " + window[0] + "+" + window[1]);
+            }
+        }
+    }
+
+    @Test
+    void minimumWindowOverScannedPositionsStartsAtTheIndexedWord() {
+        String text = "Кот сидел на окне, а кот спал.";
+        Map<String, LemmaPositions> lemmas = new LemmaFinder().collectLemmaPositions(text);
+        int[] window = PositionScorer.findMinimumWindow(
+                new int[][]{lemmas.get("кот").toArray(), lemmas.get("окно").toArray()});
+        assertArrayEquals(new int[]{3, 2}, window);
+        assertEquals(text.indexOf("окне"), LemmaFinder.findTokenOffset(text, window[0]));
+        assertEquals(0, PositionScorer.findPhrase(new int[][]{lemmas.get("кот").toArray(),
+                lemmas.get("окно").toArray()}, new int[]{0, 1}, CAT_ON_WINDOW.offsets()));
+    }
+
+    private static int bruteForceSpan(int[][] positions) {
+        int bestSpan = Integer.MAX_VALUE;
+        for (int[] lemmaPositions : positions) {
+            for (int start : lemmaPositions) {
+                int end = start;
+                for (int[] otherPositions : positions) {
+                    int nearest = Integer.MAX_VALUE;
+                    for (int position : otherPositions) {
+                        if (position >= start) {
+                            nearest = Math.min(nearest, position);
+                        }
+                    }
+                    end = Math.max(end, nearest);
+                }
+                if (end != Integer.MAX_VALUE) {
+                    bestSpan = Math.min(bestSpan, end - start);
+                }
+            }
+        }
+        return bestSpan;
+    }
+
+    private static PostingList.Cursor[] cursors(int[]... positions) {
+        PostingList.Cursor[] cursors = new PostingList.Cursor[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            cursors[i] = postingList(new int[]{1}, new int[][]{positions[i]}).cursor();
+            cursors[i].next();
+        }
+        return cursors;
+    }
+
+    private static PostingList postingList(int[] pageIds, int[][] positions) {
+        byte[][] encodedPositions = new byte[pageIds.length][];
+        float[] rankScores = new float[pageIds.length];
+        for (int i = 0; i < pageIds.length; i++) {
+            encodedPositions[i] = PositionCodec.encode(positions[i]);
+            rankScores[i] = 1;
+        }
+        return new PostingList(PostingList.encode(pageIds, rankScores, encodedPositions, pageIds.length));
+    }
+}
@@ -0,0 +1,160 @@
+package searchengine.invertedindex;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingListTest {
+    private static final int[] SIZES = {0, 1, 2, 127, 128, 129, 255, 256, 257, 1000};
+
+    @Test
+    void nextReturnsEncodedPagesAndScores() {
+        for (int size : SIZES) {
+            int[] pageIds = pageIds(size, new Random(size));
+            float[] rankScores = rankScores(size);
+            PostingList postingList = new PostingList(PostingList.encode(pageIds, rankScores, size));
+            PostingList.Cursor cursor = postingList.cursor();
+            assertEquals(size, postingList.size());
+            assertFalse(postingList.hasPositions());
+            for (int i = 0; i < size; i++) {
+                assertEquals(pageIds[i], cursor.next(), "size " + size + ", ordinal " + i);
+                assertEquals(rankScores[i], cursor.rankScore());
+            }
+            assertEquals(PostingList.NO_MORE_PAGES, cursor.next());
+            assertEquals(PostingList.NO_MORE_PAGES, cursor.pageId());
+        }
+    }
+
+    @Test
+    void advanceFromFreshCursorFindsFirstPageNotBelowTarget() {
+        for (int size : SIZES) {
+            int[] pageIds = pageIds(size, new Random(size));
+            PostingList postingList = new PostingList(PostingList.encode(pageIds, rankScores(size), size));
+            int maxPageId = size == 0 ? 10 : pageIds[size - 1] + 10;
+            for (int target = 0; target <= maxPageId; target += 7) {
+                assertEquals(expectedAdvance(pageIds, target), postingList.cursor().advance(target),
+                        "size " + size + ", target " + target);
+            }
+        }
+    }
+
+    @Test
+    void sequentialAdvancesMatchLinearScan() {
+        for (int size : SIZES) {
+            Random random = new Random(31L * size);
+            int[] pageIds = pageIds(size, random);
+            float[] rankScores = rankScores(size);
+            PostingList.Cursor cursor = new PostingList(PostingList.encode(pageIds, rankScores, size)).cursor();
+            int target = 0;
+            while (true) {
+                int expected = expectedAdvance(pageIds, target);
+                assertEquals(expected, cursor.advance(target), "size " + size + ", target " + target);
+                if (expected == PostingList.NO_MORE_PAGES) {
+                    break;
+                }
+                int ordinal = Arrays.binarySearch(pageIds, 0, size, expected);
+                assertEquals(rankScores[ordinal], cursor.rankScore());
+                target = expected + random.nextInt(600);
+            }
+        }
+    }
+
+    @Test
+    void advanceToCurrentOrEarlierPageDoesNotMove() {
+        int[] pageIds = pageIds(300, new Random(7));
+        PostingList.Cursor cursor = new PostingList(PostingList.encode(pageIds, rankScores(300), 300)).cursor();
+        assertEquals(pageIds[200], cursor.advance(pageIds[200]));
+        assertEquals(pageIds[200], cursor.advance(pageIds[10]));
+        assertEquals(pageIds[201], cursor.next());
+    }
+
+    @Test
+    void largeGapsUseMultiByteDeltas() {
+        int[] pageIds = {1, 200, 70_000, 3_000_000, 400_000_000};
+        PostingList.Cursor cursor = new PostingList(PostingList.encode(pageIds, rankScores(5), 5)).cursor();
+        for (int pageId : pageIds) {
+            assertEquals(pageId, cursor.next());
+        }
+        assertEquals(PostingList.NO_MORE_PAGES, cursor.next());
+    }
+
+    @Test
+    void positionsFollowTheirPagesAcrossBlocks() {
+        for (int size : SIZES) {
+            Random random = new Random(13L * size);
+            int[] pageIds = pageIds(size, random);
+            int[][] positions = new int[size][];
+            byte[][] encodedPositions = new byte[size][];
+            for (int i = 0; i < size; i++) {
+                positions[i] = i % 5 == 4 ? new int[0] : positions(1 + random.nextInt(6), random);
+                encodedPositions[i] = i % 10 == 9 ? null : PositionCodec.encode(positions[i]);
+            }
+            PostingList postingList = new PostingList(
+                    PostingList.encode(pageIds, rankScores(size), encodedPositions, size));
+            assertTrue(postingList.hasPositions());
+            PostingList.Cursor cursor = postingList.cursor();
+            for (int i = 0; i < size; i++) {
+                assertEquals(pageIds[i], cursor.next());
+                int[] expected = encodedPositions[i] == null ? new int[0] : positions[i];
+                assertArrayEquals(expected, cursor.positions(), "size " + size + ", ordinal " + i);
+                assertEquals(expected.length == 0 ? -1 : expected[0], cursor.firstPosition());
+            }
+            for (int ordinal = 0; ordinal < size; ordinal += 97) {
+                PostingList.Cursor skipping = postingList.cursor();
+                assertEquals(pageIds[ordinal], skipping.advance(pageIds[ordinal]));
+                int[] expected = encodedPositions[ordinal] == null ? new int[0] : positions[ordinal];
+                assertArrayEquals(expected, skipping.positions(), "size " + size + ", advanced to " + ordinal);
+            }
+        }
+    }
+
+    @Test
+    void pagesWithoutRecordedPositionsHaveNone() {
+        int[] pageIds = pageIds(300, new Random(5));
+        PostingList.Cursor cursor = new PostingList(PostingList.encode(pageIds, rankScores(300), 300)).cursor();
+        assertEquals(pageIds[150], cursor.advance(pageIds[150]));
+        assertEquals(0, cursor.positions().length);
+        assertEquals(-1, cursor.firstPosition());
+    }
+
+    static int[] positions(int size, Random random) {
+        int[] positions = new int[size];
+        int position = random.nextInt(20);
+        for (int i = 0; i < size; i++) {
+            positions[i] = position;
+            position += 1 + random.nextInt(i % 3 == 0 ? 1000 : 10);
+        }
+        return positions;
+    }
+
+    static int[] pageIds(int size, Random random) {
+        int[] pageIds = new int[size];
+        int pageId = 0;
+        for (int i = 0; i < size; i++) {
+            pageId += 1 + random.nextInt(i % 50 == 0 ? 500 : 20);
+            pageIds[i] = pageId;
+        }
+        return pageIds;
+    }
+
+    static float[] rankScores(int size) {
+        float[] rankScores = new float[size];
+        for (int i = 0; i < size; i++) {
+            rankScores[i] = i + 0.5f;
+        }
+        return rankScores;
+    }
+
+    private static int expectedAdvance(int[] pageIds, int target) {
+        for (int pageId : pageIds) {
+            if (pageId >= target) {
+                return pageId;
+            }
+        }
+        return PostingList.NO_MORE_PAGES;
+    }
+}
@@ -0,0 +1,47 @@
+package searchengine.lemmafinder;
+import org.junit.jupiter.api.Test;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LemmaFinderTest {
+    private static final String TEXT = "Кот сидел на окне, а кот спал.";
+    private final LemmaFinder lemmaFinder = new LemmaFinder();
+
+    @Test
+    void shortAndStopWordsTakePositionsWithoutBeingIndexed() {
+        Map<String, LemmaPositions> lemmas = lemmaFinder.collectLemmaPositions(TEXT);
+        assertArrayEquals(new int[]{0, 5}, lemmas.get("кот").toArray());
+        assertArrayEquals(new int[]{3}, lemmas.get("окно").toArray());
+        assertFalse(lemmas.containsKey("на"));
+        assertFalse(lemmas.containsKey("а"));
+    }
+
+    @Test
+    void findTokenOffsetPointsAtTheWordOfEachPosition() {
+        String text = "Кот сидел на окне, а кот -- спал на «окне» у двери (3 < 5).";
+        Map<String, LemmaPositions> lemmas = lemmaFinder.collectLemmaPositions(text);
+        assertFalse(lemmas.isEmpty());
+        for (Map.Entry<String, LemmaPositions> entry : lemmas.entrySet()) {
+            for (int position : entry.getValue().toArray()) {
+                int offset = LemmaFinder.findTokenOffset(text, position);
+                assertTrue(offset >= 0, entry.getKey() + " at " + position);
+                String word = text.substring(offset).split("[^А-Яа-я]", 2)[0];
+                assertTrue(lemmaFinder.collectLemmas(word).containsKey(entry.getKey()),
+                        entry.getKey() + " at " + position + " found " + word);
+            }
+        }
+    }
+
+    @Test
+    void angleBracketsInPlainTextAreNotMarkup() {
+        String text = "если а < б, то кот > окна";
+        assertArrayEquals(new int[]{4}, lemmaFinder.collectLemmaPositions(text).get("кот").toArray());
+        assertArrayEquals(new int[]{5}, lemmaFinder.collectLemmaPositions(text).get("окно").toArray());
+        assertEquals(text.indexOf("кот"), LemmaFinder.findTokenOffset(text, 4));
+        assertEquals(-1, LemmaFinder.findTokenOffset(text, 6));
+    }
+}
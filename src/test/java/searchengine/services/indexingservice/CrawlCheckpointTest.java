@@ -0,0 +1,57 @@
+package searchengine.services.indexingservice;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CrawlCheckpointTest {
+    private static final int MAX_RETRIES = 1;
+    private static final long FLUSH_INTERVAL_MS = 60_000;
+    @TempDir
+    Path temporaryDirectory;
+
+    @Test
+    void stoppedCrawlResumesFromUrlsThatWereNotDone() throws IOException {
+        Path file = temporaryDirectory.resolve("checkpoints").resolve("site-1.log");
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.open(file, false, FLUSH_INTERVAL_MS);
+        List.of("https://example.com/", "https://example.com/a", "https://example.com/b", "https://example.com/c")
+                .forEach(checkpoint::queued);
+        checkpoint.done("https://example.com/");
+        checkpoint.failed("https://example.com/a");
+        checkpoint.failed("https://example.com/b");
+        checkpoint.failed("https://example.com/b");
+        checkpoint.close();
+
+        CrawlCheckpoint.State state = CrawlCheckpoint.load(file, MAX_RETRIES);
+        assertEquals(List.of("https://example.com/a", "https://example.com/c"), state.pendingUrls());
+        assertEquals(Set.of("https://example.com/", "https://example.com/a",
+                "https://example.com/b", "https://example.com/c"), state.visitedUrls());
+
+        CrawlCheckpoint resumed = CrawlCheckpoint.open(file, true, FLUSH_INTERVAL_MS);
+        resumed.done("https://example.com/a");
+        resumed.queued("https://example.com/d");
+        resumed.close();
+        resumed.done("https://example.com/c");
+        assertEquals(List.of("https://example.com/c", "https://example.com/d"),
+                CrawlCheckpoint.load(file, MAX_RETRIES).pendingUrls());
+    }
+
+    @Test
+    void freshCrawlTruncatesAndFinishedCrawlDeletesTheCheckpoint() throws IOException {
+        Path file = temporaryDirectory.resolve("site-2.log");
+        Files.writeString(file, "Q\thttps://example.com/old\nmalformed\n");
+        CrawlCheckpoint checkpoint = CrawlCheckpoint.open(file, false, FLUSH_INTERVAL_MS);
+        checkpoint.queued("https://example.com/");
+        checkpoint.close();
+        assertEquals(List.of("https://example.com/"), CrawlCheckpoint.load(file, MAX_RETRIES).pendingUrls());
+
+        CrawlCheckpoint.open(file, true, FLUSH_INTERVAL_MS).delete();
+        assertFalse(Files.exists(file));
+    }
+}